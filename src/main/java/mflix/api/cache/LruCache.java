@@ -0,0 +1,296 @@
+package mflix.api.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded in-process cache with least recently used eviction. Entries expire `ttlMillis` after
+ * being written and the cache keeps the total weight of its entries, as computed by the {@link
+ * Weigher}, under `maxWeight`. Expired entries are purged before any least recently used entry is
+ * evicted. Hit, miss and eviction counters are kept so that the cache effectiveness can be
+ * reported.
+ *
+ * @param <K> - key type.
+ * @param <V> - value type.
+ */
+public class LruCache<K, V> {
+
+  /** Computes the weight of a cache entry. */
+  public interface Weigher<K, V> {
+    long weigh(K key, V value);
+  }
+
+  private static class Entry<V> {
+    private final V value;
+    private final long weight;
+    private final long expiresAt;
+
+    private Entry(V value, long weight, long expiresAt) {
+      this.value = value;
+      this.weight = weight;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final String name;
+
+  private final long maxWeight;
+
+  private final long ttlNanos;
+
+  private final Weigher<K, V> weigher;
+
+  /** A load in progress, marked stale by the invalidations of its key. */
+  private static class Load {
+    private boolean stale;
+  }
+
+  private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long weight;
+
+  /** Loads in progress by key, so that loads running across an invalidation are not cached. */
+  private final Map<K, List<Load>> loads = new HashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Creates a cache where every entry weighs 1, so `maxWeight` is the max number of entries.
+   *
+   * @param name - cache name, used in stats.
+   * @param maxWeight - max number of entries.
+   * @param ttlMillis - time to live of each entry in milliseconds.
+   */
+  public LruCache(String name, long maxWeight, long ttlMillis) {
+    this(name, maxWeight, ttlMillis, (k, v) -> 1);
+  }
+
+  /**
+   * Creates a cache bounded by the total weight of its entries.
+   *
+   * @param name - cache name, used in stats.
+   * @param maxWeight - max total weight of the cached entries. Zero disables caching.
+   * @param ttlMillis - time to live of each entry in milliseconds.
+   * @param weigher - entry weight function.
+   */
+  public LruCache(String name, long maxWeight, long ttlMillis, Weigher<K, V> weigher) {
+    this.name = name;
+    this.maxWeight = maxWeight;
+    this.ttlNanos = ttlMillis * 1_000_000L;
+    this.weigher = weigher;
+  }
+
+  /**
+   * Returns the cached value for `key`, or null if not present or expired.
+   *
+   * @param key - cache key.
+   * @return cached value or null.
+   */
+  public V get(K key) {
+    synchronized (this) {
+      Entry<V> entry = entries.get(key);
+      if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+        hits.incrementAndGet();
+        return entry.value;
+      }
+      if (entry != null) {
+        remove(key);
+      }
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Returns the cached value for `key`, loading and caching it with `loader` on a miss. The loader
+   * runs outside of the cache lock, so concurrent misses on the same key may load it more than
+   * once. A value loaded while its key was invalidated is returned but not cached, since it may
+   * have been read before the write that caused the invalidation. Invalidations of other keys do
+   * not affect the load.
+   *
+   * @param key - cache key.
+   * @param loader - function that computes the value of a missing key.
+   * @return cached or loaded value.
+   */
+  public V get(K key, Function<? super K, ? extends V> loader) {
+    V value = get(key);
+    if (value == null) {
+      Load load = new Load();
+      synchronized (this) {
+        loads.computeIfAbsent(key, k -> new ArrayList<>()).add(load);
+      }
+      try {
+        value = loader.apply(key);
+        putEntry(key, value, ttlNanos, load);
+      } finally {
+        synchronized (this) {
+          List<Load> keyLoads = loads.get(key);
+          keyLoads.remove(load);
+          if (keyLoads.isEmpty()) {
+            loads.remove(key);
+          }
+        }
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Adds `value` to the cache, evicting the least recently used entries if the max weight is
+   * exceeded. Null values and entries heavier than the max weight are not cached.
+   *
+   * @param key - cache key.
+   * @param value - value to be cached.
+   */
+  public void put(K key, V value) {
+    putEntry(key, value, ttlNanos, null);
+  }
+
+  /**
+   * Adds `value` to the cache with its own time to live, for values that must not outlive an
+   * expiry of their own. The entry never outlives the cache time to live.
+   *
+   * @param key - cache key.
+   * @param value - value to be cached.
+   * @param ttlMillis - time to live of the entry in milliseconds. Non positive values are not
+   *     cached.
+   */
+  public void put(K key, V value, long ttlMillis) {
+    if (ttlMillis > 0) {
+      putEntry(key, value, Math.min(ttlMillis * 1_000_000L, ttlNanos), null);
+    }
+  }
+
+  /** Adds an entry, unless it was loaded by `load` and its key was invalidated meanwhile. */
+  private void putEntry(K key, V value, long entryTtlNanos, Load load) {
+    if (value == null) {
+      return;
+    }
+    long entryWeight = weigher.weigh(key, value);
+    if (entryWeight > maxWeight) {
+      return;
+    }
+    synchronized (this) {
+      if (load != null && load.stale) {
+        return;
+      }
+      long now = System.nanoTime();
+      remove(key);
+      entries.put(key, new Entry<>(value, entryWeight, now + entryTtlNanos));
+      weight += entryWeight;
+      if (weight > maxWeight) {
+        purgeExpired(now);
+      }
+      Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+      while (weight > maxWeight && eldest.hasNext()) {
+        weight -= eldest.next().getValue().weight;
+        eldest.remove();
+        evictions.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Removes the entry of `key`, if present.
+   *
+   * @param key - cache key.
+   */
+  public synchronized void invalidate(K key) {
+    remove(key);
+    markStale(loads.get(key));
+  }
+
+  /**
+   * Removes all entries which keys match `predicate`.
+   *
+   * @param predicate - key selector.
+   */
+  public synchronized void invalidateIf(Predicate<? super K> predicate) {
+    for (Map.Entry<K, List<Load>> keyLoads : loads.entrySet()) {
+      if (predicate.test(keyLoads.getKey())) {
+        markStale(keyLoads.getValue());
+      }
+    }
+    Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<K, Entry<V>> entry = it.next();
+      if (predicate.test(entry.getKey())) {
+        weight -= entry.getValue().weight;
+        it.remove();
+      }
+    }
+  }
+
+  /** Removes all entries. */
+  public synchronized void invalidateAll() {
+    for (List<Load> keyLoads : loads.values()) {
+      markStale(keyLoads);
+    }
+    entries.clear();
+    weight = 0;
+  }
+
+  /**
+   * Number of entries currently cached, including the expired ones not yet removed.
+   *
+   * @return number of entries.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Collects the cache counters.
+   *
+   * @return Map with `name`, `size`, `weight`, `max_weight`, `hits`, `misses` and `evictions`
+   *     keys.
+   */
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new HashMap<>();
+    synchronized (this) {
+      stats.put("size", entries.size());
+      stats.put("weight", weight);
+    }
+    stats.put("name", name);
+    stats.put("max_weight", maxWeight);
+    stats.put("hits", hits.get());
+    stats.put("misses", misses.get());
+    stats.put("evictions", evictions.get());
+    return stats;
+  }
+
+  private void purgeExpired(long now) {
+    Iterator<Entry<V>> it = entries.values().iterator();
+    while (it.hasNext()) {
+      Entry<V> entry = it.next();
+      if (entry.expiresAt - now <= 0) {
+        weight -= entry.weight;
+        it.remove();
+      }
+    }
+  }
+
+  private static void markStale(List<Load> keyLoads) {
+    if (keyLoads != null) {
+      for (Load load : keyLoads) {
+        load.stale = true;
+      }
+    }
+  }
+
+  private void remove(K key) {
+    Entry<V> removed = entries.remove(key);
+    if (removed != null) {
+      weight -= removed.weight;
+    }
+  }
+}
@@ -1,6 +1,10 @@
 package mflix.api.controllers;
 
+import mflix.api.daos.IncorrectDaoOperation;
+import mflix.api.security.PasswordHashingRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -52,4 +56,19 @@ public class GlobalExceptionHandler {
                 })
             .collect(Collectors.toList()));
   }
+
+  @ExceptionHandler
+  @ResponseBody
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Map<String, String> handle(IncorrectDaoOperation exception) {
+    return Collections.singletonMap("error", exception.getMessage());
+  }
+
+  @ExceptionHandler
+  @ResponseBody
+  public ResponseEntity<Map<String, String>> handle(PasswordHashingRejectedException exception) {
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(Collections.singletonMap("error", exception.getMessage()));
+  }
 }
@@ -1,14 +1,26 @@
 package mflix.api.controllers;
 
-import mflix.api.models.Movie;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import mflix.api.services.MoviesService;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @RestController
@@ -18,9 +30,19 @@ public class MovieController extends ApiController {
 
   @Autowired private MoviesService moviesService;
 
+  @Autowired private ObjectMapper objectMapper;
+
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
   @Value("${api.movies.movies_per_page}")
   private int MOVIES_PER_PAGE = 20;
 
+  @Value("${api.movies.comments.per_page:20}")
+  private int COMMENTS_PER_PAGE = 20;
+
+  @Value("${api.movies.stream.max_per_page:1000}")
+  private int STREAM_MAX_PER_PAGE = 1000;
+
   public MovieController() {
     super();
   }
@@ -38,6 +60,12 @@ public class MovieController extends ApiController {
     results.put("entries_per_page", MOVIES_PER_PAGE);
     if (moviesResults.containsKey("movies_count")) {
       results.put("total_results", moviesResults.get("movies_count"));
+      if (moviesResults.containsKey("movies_count_capped")) {
+        results.put("total_results_display", moviesResults.get("movies_count") + "+");
+      }
+    }
+    if (moviesResults.get("next_page") != null) {
+      results.put("next", moviesResults.get("next_page"));
     }
 
     results.put("filters", filters);
@@ -53,15 +81,34 @@ public class MovieController extends ApiController {
   @GetMapping(value = "/id/{movieId}")
   ResponseEntity getMovie(@PathVariable(value = "movieId") String movieId) {
     HashMap<String, Object> result = new HashMap<>();
-    Movie movie = moviesService.getMovie(movieId);
+    Map<String, ?> movie = moviesService.getMovieWithFieldType(movieId, "lastupdated");
     if (movie == null) {
       result.put("error", "Not found");
       return ResponseEntity.badRequest().body(result);
     }
 
-    result.put("movie", movie);
+    result.put("movie", movie.get("movie"));
     result.put("api", "java");
-    result.put("updated_type", moviesService.getMovieDocumentFieldType(movieId, "lastupdated"));
+    result.put("updated_type", movie.get("field_type"));
+    return ResponseEntity.ok(result);
+  }
+
+  @GetMapping(value = "/id/{movieId}/comments")
+  ResponseEntity getMovieComments(
+      @PathVariable(value = "movieId") String movieId,
+      @RequestParam(value = "after", required = false) String after) {
+    HashMap<String, Object> result = new HashMap<>();
+    if (!ObjectId.isValid(movieId)) {
+      result.put("error", "Not found");
+      return ResponseEntity.badRequest().body(result);
+    }
+
+    Map<String, ?> comments = moviesService.getMovieComments(movieId, COMMENTS_PER_PAGE, after);
+    result.put("comments", comments.get("comments"));
+    result.put("entries_per_page", COMMENTS_PER_PAGE);
+    if (comments.get("next_page") != null) {
+      result.put("next", comments.get("next_page"));
+    }
     return ResponseEntity.ok(result);
   }
 
@@ -78,6 +125,7 @@ public class MovieController extends ApiController {
   @GetMapping(value = "/search")
   public ResponseEntity<Map> search(
       @RequestParam(value = "page", required = false, defaultValue = "0") @Min(0) Integer page,
+      @RequestParam(value = "after", required = false) String after,
       @RequestParam(value = "text", required = false) ArrayList<String> text,
       @RequestParam(value = "cast", required = false) ArrayList<String> cast,
       @RequestParam(value = "genre", required = false) ArrayList<String> genre) {
@@ -86,44 +134,171 @@ public class MovieController extends ApiController {
     if (text != null) {
       filters.put("text", text);
       return buildOkResponse(
-          moviesService.getMoviesByText(MOVIES_PER_PAGE, page, text), page, filters);
+          moviesService.getMoviesByText(MOVIES_PER_PAGE, page, text, after), page, filters);
     }
 
     if (cast != null) {
       filters.put("cast", cast);
       return buildOkResponse(
-          moviesService.getMoviesByCast(MOVIES_PER_PAGE, page, cast), page, filters);
+          moviesService.getMoviesByCast(MOVIES_PER_PAGE, page, cast, after), page, filters);
     }
 
     if (genre != null) {
       filters.put("genre", genre);
       return buildOkResponse(
-          moviesService.getMoviesByGenre(MOVIES_PER_PAGE, page, genre), page, filters);
+          moviesService.getMoviesByGenre(MOVIES_PER_PAGE, page, genre, after), page, filters);
+    }
+
+    return buildOkResponse(
+        moviesService.getMovies(MOVIES_PER_PAGE, page, after), page, Collections.emptyMap());
+  }
+
+  @GetMapping(value = "/stream")
+  public ResponseEntity stream(
+      @RequestParam(value = "page", required = false, defaultValue = "0") @Min(0) Integer page,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "limit", required = false) Integer limit,
+      @RequestParam(value = "cast", required = false) ArrayList<String> cast,
+      @RequestParam(value = "genre", required = false) ArrayList<String> genre) {
+
+    int perPage = limit == null ? MOVIES_PER_PAGE : limit;
+    if (perPage < 1 || perPage > STREAM_MAX_PER_PAGE) {
+      Map<String, Object> result = new HashMap<>();
+      result.put("error", "limit must be between 1 and " + STREAM_MAX_PER_PAGE);
+      return ResponseEntity.badRequest().body(result);
+    }
+
+    Map<String, List<String>> filters = new HashMap<>();
+    String filterType = "all";
+    List<String> filterValues = Collections.emptyList();
+    if (cast != null) {
+      filters.put("cast", cast);
+      filterType = "cast";
+      filterValues = cast;
+    } else if (genre != null) {
+      filters.put("genre", genre);
+      filterType = "genre";
+      filterValues = genre;
     }
 
-    return index();
+    String type = filterType;
+    List<String> values = filterValues;
+    Long count = moviesService.getMoviesStreamCount(type, values, page, after);
+    StreamingResponseBody body =
+        outputStream -> {
+          try (JsonGenerator json =
+              objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeNumberField("page", page);
+            json.writeNumberField("entries_per_page", perPage);
+            json.writeObjectField("filters", filters);
+            if (count != null) {
+              json.writeNumberField("total_results", count);
+            }
+            json.writeArrayFieldStart("movies");
+            String next =
+                moviesService.streamMovies(
+                    type,
+                    values,
+                    perPage,
+                    page,
+                    after,
+                    movie -> {
+                      try {
+                        json.writeObject(movie);
+                      } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                      }
+                    });
+            json.writeEndArray();
+            if (next != null) {
+              json.writeStringField("next", next);
+            }
+            json.writeEndObject();
+          }
+        };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
+  }
+
+  @GetMapping(value = "/export")
+  public ResponseEntity export(
+      @RequestParam(value = "countries", required = false) ArrayList<String> countries,
+      @RequestParam(value = "genre", required = false) ArrayList<String> genres,
+      @RequestParam(value = "updated_since", required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime updatedSince,
+      @RequestParam(value = "after_id", required = false) String afterId,
+      @RequestParam(value = "fields", required = false) ArrayList<String> fields,
+      Principal principal) {
+
+    if (principal == null) {
+      Map<String, Object> result = new HashMap<>();
+      result.put("error", "Not authorized to export movies");
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(result);
+    }
+
+    if (afterId != null && !ObjectId.isValid(afterId)) {
+      Map<String, Object> result = new HashMap<>();
+      result.put("error", "Invalid after_id");
+      return ResponseEntity.badRequest().body(result);
+    }
+
+    ObjectId resumeAfter = afterId == null ? null : new ObjectId(afterId);
+    StreamingResponseBody body =
+        outputStream ->
+            moviesService.exportMovies(
+                countries,
+                genres,
+                updatedSince,
+                resumeAfter,
+                fields,
+                json -> {
+                  try {
+                    outputStream.write(json.getBytes(StandardCharsets.UTF_8));
+                    outputStream.write('\n');
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                });
+    return ResponseEntity.ok().contentType(NDJSON).body(body);
   }
 
   @RequestMapping(value = "/facet-search", method = RequestMethod.GET)
   public ResponseEntity<Map> apiSearchMoviesFaceted(
-      @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
-      @RequestParam(value = "cast", required = false) @Size(min = 1) ArrayList<String> cast) {
+      @RequestParam(value = "page", required = false, defaultValue = "0") @Min(0) Integer page,
+      @RequestParam(value = "cast", required = false) @Size(min = 1) ArrayList<String> cast,
+      @RequestParam(value = "genre", required = false) @Size(min = 1) ArrayList<String> genre,
+      @RequestParam(value = "country", required = false) @Size(min = 1) ArrayList<String> country,
+      @RequestParam(value = "year", required = false) @Size(min = 1) ArrayList<String> year) {
 
     Map<String, List<String>> filters = new HashMap<>();
-    filters.put("cast", cast);
-    Map<String, ?> results = moviesService.getMovieFacetedSearch(cast, page, MOVIES_PER_PAGE);
+    if (cast != null) {
+      filters.put("cast", cast);
+    }
+    if (genre != null) {
+      filters.put("genres", genre);
+    }
+    if (country != null) {
+      filters.put("countries", country);
+    }
+    if (year != null) {
+      filters.put("year", year);
+    }
+    // the buckets of an unfiltered search would group the whole collection
+    if (filters.isEmpty()) {
+      Map<String, Object> result = new HashMap<>();
+      result.put("error", "At least one of cast, genre, country or year is required");
+      return ResponseEntity.badRequest().body(result);
+    }
+    Map<String, ?> results = moviesService.getMovieFacetedSearch(filters, page, MOVIES_PER_PAGE);
 
     if (results.get("movies") == null) {
       return ResponseEntity.notFound().build();
     }
 
-    Map<String, Object> facets = new HashMap<>();
-    facets.put("runtime", results.get("runtime"));
-    facets.put("rating", results.get("rating"));
-
     HashMap<String, Object> response = new HashMap<>();
     response.put("movies", results.get("movies"));
-    response.put("facets", facets);
+    response.put("facets", results.get("facets"));
     response.put("total_results", results.get("count"));
     response.put("entries_per_page", MOVIES_PER_PAGE);
     response.put("filters", filters);
@@ -186,6 +361,14 @@ public class MovieController extends ApiController {
     return ResponseEntity.ok(results);
   }
 
+  @GetMapping(value = "/cache-stats")
+  public ResponseEntity<Map> cacheStats() {
+    Map<String, Object> results = new HashMap<>();
+    results.put("movies", moviesService.getCacheStats());
+    results.put("tokens", tokenProvider.getCacheStats());
+    return ResponseEntity.ok(results);
+  }
+
   @GetMapping(value = "/config-options")
   public ResponseEntity configOptions() {
     Map<String, ?> results = moviesService.getConfiguration();
@@ -3,6 +3,7 @@ package mflix.api.controllers;
 import mflix.api.models.Login;
 import mflix.api.models.User;
 import mflix.api.models.UserRegistry;
+import mflix.api.services.DiagnosticsService;
 import mflix.api.services.MoviesService;
 import mflix.api.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,6 +28,8 @@ public class UserController extends ApiController {
 
   @Autowired MoviesService moviesService;
 
+  @Autowired DiagnosticsService diagnosticsService;
+
   public UserController() {
     super();
   }
@@ -134,6 +137,38 @@ public class UserController extends ApiController {
     return ResponseEntity.ok(results);
   }
 
+  @GetMapping("/query-plans")
+  public ResponseEntity getQueryPlans(
+      @RequestHeader("Authorization") String authorizationToken) {
+    String email = getEmailFromRequest(authorizationToken);
+    Map<String, Object> results = new HashMap<>();
+    User user = userService.loadUser(email);
+    if (!user.isAdmin()) {
+      results.put("status", "fail");
+      return ResponseEntity.status(401).body(results);
+    }
+
+    results.put("auth_token", tokenProvider.mintJWTHeader(email));
+    results.put("report", diagnosticsService.getQueryPlans());
+    return ResponseEntity.ok(results);
+  }
+
+  @GetMapping("/hashing-stats")
+  public ResponseEntity getHashingStats(
+      @RequestHeader("Authorization") String authorizationToken) {
+    String email = getEmailFromRequest(authorizationToken);
+    Map<String, Object> results = new HashMap<>();
+    User user = userService.loadUser(email);
+    if (!user.isAdmin()) {
+      results.put("status", "fail");
+      return ResponseEntity.status(401).body(results);
+    }
+
+    results.put("auth_token", tokenProvider.mintJWTHeader(email));
+    results.put("report", userService.getPasswordHashingStats());
+    return ResponseEntity.ok(results);
+  }
+
   @Override
   ResponseEntity<Map> index() {
     return ResponseEntity.ok(Collections.emptyMap());
@@ -3,12 +3,18 @@ package mflix.api.daos;
 import com.mongodb.ConnectionString;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,10 +38,108 @@ public abstract class AbstractMFlixDao {
     this.db = this.mongoClient.getDatabase(MFLIX_DATABASE);
   }
 
+  /**
+   * Declares the indexes required by the queries of this DAO, by collection name.
+   *
+   * @return Map of collection names to the list of their indexes.
+   */
+  public Map<String, List<IndexModel>> getIndexModels() {
+    return Collections.emptyMap();
+  }
+
+  /**
+   * Lists the names of existing indexes, by collection name, that the declared indexes supersede,
+   * e.g. an index of the dataset that is a prefix of a declared one. They are dropped once the
+   * declared indexes of their collection are built.
+   *
+   * @return Map of collection names to the list of superseded index names.
+   */
+  public Map<String, List<String>> getReplacedIndexes() {
+    return Collections.emptyMap();
+  }
+
+  /**
+   * Declares an index that is built in the background, so that creating it on a running server
+   * does not block the reads and writes of its collection.
+   *
+   * @param keys - index keys.
+   * @return IndexModel object.
+   */
+  protected static IndexModel backgroundIndex(Bson keys) {
+    return backgroundIndex(keys, new IndexOptions());
+  }
+
+  /**
+   * Declares an index with the given options that is built in the background.
+   *
+   * @param keys - index keys.
+   * @param options - index options.
+   * @return IndexModel object.
+   */
+  protected static IndexModel backgroundIndex(Bson keys, IndexOptions options) {
+    return new IndexModel(keys, options.background(true));
+  }
+
+  /**
+   * Explains the queries issued by this DAO, using representative parameter values, so that their
+   * winning plans can be checked against the available indexes.
+   *
+   * @return Map of query names to their plan summary.
+   */
+  public Map<String, QueryPlan> explainQueries() {
+    return Collections.emptyMap();
+  }
+
+  /**
+   * Creates the indexes declared by {@link #getIndexModels()}. Existing indexes are left as they
+   * are.
+   */
+  public void createIndexes() {
+    for (Map.Entry<String, List<IndexModel>> indexes : getIndexModels().entrySet()) {
+      db.getCollection(indexes.getKey()).createIndexes(indexes.getValue());
+    }
+  }
+
   public ObjectId generateObjectId() {
     return new ObjectId();
   }
 
+  /**
+   * Runs the explain command, with `executionStats` verbosity, for a find query with the given
+   * options. Any option but `filter` can be null.
+   *
+   * @param collection - name of the queried collection.
+   * @param filter - query filter.
+   * @param projection - query projection.
+   * @param sort - query sort.
+   * @param hint - index hint.
+   * @param limit - query limit, or 0 for no limit.
+   * @return explain command result.
+   */
+  protected Document explainFind(
+      String collection, Bson filter, Bson projection, Bson sort, Bson hint, int limit) {
+    BsonDocument find = new BsonDocument("find", new BsonString(collection));
+    if (limit > 0) {
+      find.append("limit", new BsonInt32(limit));
+    }
+    find.append("filter", toBsonDocument(filter));
+    if (projection != null) {
+      find.append("projection", toBsonDocument(projection));
+    }
+    if (sort != null) {
+      find.append("sort", toBsonDocument(sort));
+    }
+    if (hint != null) {
+      find.append("hint", toBsonDocument(hint));
+    }
+    return db.runCommand(
+        new BsonDocument("explain", find).append("verbosity", new BsonString("executionStats")));
+  }
+
+  private BsonDocument toBsonDocument(Bson bson) {
+    return bson.toBsonDocument(BsonDocument.class, db.getCodecRegistry());
+  }
+
   public Map<String, Object> getConfiguration() {
     ConnectionString connString = new ConnectionString(connectionString);
     Bson command = new Document("connectionStatus", 1);
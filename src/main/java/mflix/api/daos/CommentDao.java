@@ -1,16 +1,19 @@
 package mflix.api.daos;
 
 import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
 import com.mongodb.MongoWriteException;
 import com.mongodb.ReadConcern;
 import com.mongodb.WriteConcern;
 import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
@@ -31,13 +34,14 @@ import org.springframework.stereotype.Component;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.mongodb.client.model.Accumulators.sum;
 import static com.mongodb.client.model.Aggregates.group;
-import static com.mongodb.client.model.Aggregates.limit;
-import static com.mongodb.client.model.Aggregates.sort;
 import static com.mongodb.client.model.Filters.eq;
 import static com.mongodb.client.model.Sorts.descending;
 import static com.mongodb.client.model.Updates.set;
@@ -49,8 +53,17 @@ public class CommentDao extends AbstractMFlixDao {
 
     public static String COMMENT_COLLECTION = "comments";
 
+    public static String COMMENTER_COUNTS_COLLECTION = "commenter_counts";
+
+    private static final int REPORT_SIZE = 20;
+
+    private static final Bson REPORT_SORT =
+            Sorts.orderBy(descending("count"), Sorts.ascending("_id"));
+
     private MongoCollection<Comment> commentCollection;
 
+    private MongoCollection<Document> commenterCountsCollection;
+
     private CodecRegistry pojoCodecRegistry;
 
     private final Logger log;
@@ -67,6 +80,70 @@ public class CommentDao extends AbstractMFlixDao {
                         fromProviders(PojoCodecProvider.builder().automatic(true).build()));
         this.commentCollection =
                 db.getCollection(COMMENT_COLLECTION, Comment.class).withCodecRegistry(pojoCodecRegistry);
+        this.commenterCountsCollection = db.getCollection(COMMENTER_COUNTS_COLLECTION);
+    }
+
+    /**
+     * Declares the indexes used by the comments queries: movie comments sorted by date and comments
+     * by user email, and the commenter counts sorted by number of comments.
+     *
+     * @return Map with the lists of `comments` and `commenter_counts` collection indexes.
+     */
+    @Override
+    public Map<String, List<IndexModel>> getIndexModels() {
+        Map<String, List<IndexModel>> indexes = new LinkedHashMap<>();
+        indexes.put(
+                COMMENT_COLLECTION,
+                Arrays.asList(
+                        backgroundIndex(Indexes.compoundIndex(
+                                Indexes.ascending("movie_id"), Indexes.descending("date", "_id"))),
+                        backgroundIndex(Indexes.ascending("email"))));
+        indexes.put(
+                COMMENTER_COUNTS_COLLECTION,
+                Collections.singletonList(backgroundIndex(Indexes.compoundIndex(
+                        Indexes.descending("count"), Indexes.ascending("_id")))));
+        return indexes;
+    }
+
+    /**
+     * The dataset `movie_id_1` index is a prefix of the movie comments index.
+     *
+     * @return Map with the replaced `comments` collection index.
+     */
+    @Override
+    public Map<String, List<String>> getReplacedIndexes() {
+        return Collections.singletonMap(
+                COMMENT_COLLECTION, Collections.singletonList("movie_id_1"));
+    }
+
+    /**
+     * Explains the movie comments query, for the first page of comments, and the most active
+     * commenters report.
+     *
+     * @return Map of query names to their plan summary.
+     */
+    @Override
+    public Map<String, QueryPlan> explainQueries() {
+        Map<String, QueryPlan> plans = new LinkedHashMap<>();
+        plans.put(
+                "comments.by_movie",
+                new QueryPlan(explainFind(
+                        COMMENT_COLLECTION,
+                        eq("movie_id", new ObjectId()),
+                        null,
+                        descending("date", "_id"),
+                        null,
+                        20)));
+        plans.put(
+                "comments.report",
+                new QueryPlan(explainFind(
+                        COMMENTER_COUNTS_COLLECTION,
+                        new Document(),
+                        null,
+                        REPORT_SORT,
+                        null,
+                        REPORT_SIZE)));
+        return plans;
     }
 
     /**
@@ -79,6 +156,55 @@ public class CommentDao extends AbstractMFlixDao {
         return commentCollection.find(new Document("_id", new ObjectId(id))).first();
     }
 
+    /**
+     * Returns a page of the comments of a movie, most recent first. Pages are continued with the
+     * `after` page token, keyed on the comment `date` and `_id`, instead of skipping over previous
+     * pages. This method would be equivalent to running the following mongo shell command:
+     *
+     * <p>db.comments.find({movie_id: movieId, ...after}).sort({date: -1, _id: -1}).limit(limit)
+     *
+     * <p>
+     *
+     * @param movieId - movie identifier string.
+     * @param limit   - max number of comments to be returned.
+     * @param after   - page token of the previous page, or null for the first page.
+     * @return List of Comment objects.
+     */
+    public List<Comment> getMovieComments(String movieId, int limit, String after) {
+        Bson filter = eq("movie_id", new ObjectId(movieId));
+        if (after != null) {
+            filter = Filters.and(filter, PageToken.decode(after).seekFilter("date"));
+        }
+        List<Comment> comments = new ArrayList<>();
+        commentCollection.find(filter).sort(descending("date", "_id")).limit(limit).into(comments);
+        return comments;
+    }
+
+    /**
+     * Returns the token of the comments page that follows `comments`.
+     *
+     * @param comments - current page of comments.
+     * @param limit    - requested page size.
+     * @return encoded page token, or null if `comments` is the last page.
+     */
+    public static String nextPageToken(List<Comment> comments, int limit) {
+        if (comments.isEmpty() || comments.size() < limit) {
+            return null;
+        }
+        Comment last = comments.get(comments.size() - 1);
+        return new PageToken(last.getDate(), last.getOid()).encode();
+    }
+
+    /**
+     * Counts the comments of a movie.
+     *
+     * @param movieId - movie identifier string.
+     * @return number of comments.
+     */
+    public long getMovieCommentsCount(String movieId) {
+        return commentCollection.countDocuments(eq("movie_id", new ObjectId(movieId)));
+    }
+
     /**
      * Adds a new Comment to the collection. The equivalent instruction in the mongo shell would be:
      *
@@ -99,6 +225,7 @@ public class CommentDao extends AbstractMFlixDao {
         // comment.
         MongoCollection<Comment> commentMongoCollection = commentCollection.withWriteConcern(WriteConcern.W1);
         commentMongoCollection.insertOne(comment);
+        incrementCommenterCount(comment.getEmail(), 1);
         return comment;
 
         // TODO> Ticket - Handling Errors: Implement a try catch block to
@@ -156,6 +283,7 @@ public class CommentDao extends AbstractMFlixDao {
         DeleteResult deleteResult = commentCollection.deleteOne(filter);
 
         if(deleteResult.getDeletedCount()>0){
+            incrementCommenterCount(email, -1);
             return true;
         }
 
@@ -166,36 +294,73 @@ public class CommentDao extends AbstractMFlixDao {
     }
 
     /**
-     * Ticket: User Report - produce a list of users that comment the most in the website. Query the
-     * `comments` collection and group the users by number of comments. The list is limited to up most
-     * 20 commenter.
+     * Adjusts the number of comments of a commenter in the `commenter_counts` collection. Counts are
+     * never decremented below zero, so that comments written around this DAO cannot produce negative
+     * counts; such drifts are fixed by {@link #reconcileCommenterCounts()}.
+     *
+     * @param email - commenter email.
+     * @param delta - number of added comments, negative for deleted comments.
+     */
+    private void incrementCommenterCount(String email, long delta) {
+        if (email == null) {
+            return;
+        }
+        try {
+            if (delta > 0) {
+                commenterCountsCollection.updateOne(
+                        eq("_id", email), Updates.inc("count", delta), new UpdateOptions().upsert(true));
+            } else {
+                commenterCountsCollection.updateOne(
+                        Filters.and(eq("_id", email), Filters.gte("count", -delta)),
+                        Updates.inc("count", delta));
+            }
+        } catch (MongoException e) {
+            // the comment write succeeded, the next reconciliation fixes the count
+            log.warn("Cannot update the comments count of {}: {}", email, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the `commenter_counts` collection from the `comments` collection, replacing it with
+     * the result of a $group by email. The $out stage swaps the collection atomically and keeps its
+     * indexes, so the report keeps being served during the rebuild. Counter updates applied while
+     * the aggregation runs may be overwritten; they are restored by the next reconciliation.
+     *
+     * @return number of commenters.
+     */
+    public long reconcileCommenterCounts() {
+        db.getCollection(COMMENT_COLLECTION)
+                .aggregate(Arrays.asList(
+                        group("$email", sum("count", 1L)),
+                        Aggregates.out(COMMENTER_COUNTS_COLLECTION)))
+                .toCollection();
+        return commenterCountsCollection.estimatedDocumentCount();
+    }
+
+    /**
+     * Ticket: User Report - produce a list of users that comment the most in the website. The
+     * number of comments per user is maintained in the `commenter_counts` collection by {@link
+     * #addComment(Comment)} and {@link #deleteComment(String, String)}, so the report is an indexed
+     * sort instead of a $group over all comments. The counts are built from the comments when the
+     * collection is empty. The list is limited to up most 20 commenter.
      *
      * @return List {@link Critic} objects.
      */
     public List<Critic> mostActiveCommenters() {
         List<Critic> mostActive = new ArrayList<>();
-        // // TODO> Ticket: User Report - execute a command that returns the
-        // // list of 20 users, group by number of comments. Don't forget,
-        // // this report is expected to be produced with an high durability
-        // // guarantee for the returned documents. Once a commenter is in the
-        // // top 20 of users, they become a Critic, so mostActive is composed of
-        // // Critic objects.
-        MongoCollection<Document> commentCollection = db.getCollection("comments").withReadConcern(ReadConcern.MAJORITY);
-        List<Bson> filter = Arrays.asList(
-                group(eq("email", "$email"), sum("count", 1L))
-                , sort(descending("count")), limit(20));
-        MongoCursor<Document> iterator = commentCollection.aggregate(filter).iterator();
-        iterator.forEachRemaining(x->{
-            Critic c = new Critic();
-            c.setId((((Document)x.get("_id")).get("email")).toString());
-            c.setNumComments(Integer.parseInt(x.get("count").toString()));
-            mostActive.add(c);
-        });
-//
-//        iterator.forEachRemaining(tc->{
-//            mostActive.add(new Critic(tc.get("email").toString(),Integer.parseInt(tc.get("count").toString())));
-//        });
-
+        // this report is expected to be produced with an high durability
+        // guarantee for the returned documents
+        MongoCollection<Document> counts =
+                commenterCountsCollection.withReadConcern(ReadConcern.MAJORITY);
+        if (counts.estimatedDocumentCount() == 0) {
+            reconcileCommenterCounts();
+        }
+        for (Document count :
+                counts.find().sort(REPORT_SORT)
+                        .limit(REPORT_SIZE)) {
+            mostActive.add(
+                    new Critic(count.getString("_id"), ((Number) count.get("count")).intValue()));
+        }
         return mostActive;
     }
 }
@@ -0,0 +1,159 @@
+package mflix.api.daos;
+
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BsonField;
+import com.mongodb.client.model.BucketAutoOptions;
+import com.mongodb.client.model.BucketOptions;
+import com.mongodb.client.model.Facet;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Definition of a faceted search dimension: the movie `field` it groups by and how values are
+ * grouped. A dimension is computed as one of:
+ *
+ * <ul>
+ *   <li>fixed buckets, if `boundaries` are set, with values outside the boundaries counted in the
+ *       `other` bucket;
+ *   <li>automatic buckets, if `buckets` is set, with boundaries chosen to spread the values evenly;
+ *   <li>the `top` most frequent values otherwise, which fits array fields like genres.
+ * </ul>
+ */
+public class FacetDefinition {
+
+  private static final int DEFAULT_TOP = 10;
+
+  private String name;
+
+  private String field;
+
+  private List<Integer> boundaries = new ArrayList<>();
+
+  private int buckets;
+
+  private int top = DEFAULT_TOP;
+
+  public FacetDefinition() {
+    super();
+  }
+
+  public FacetDefinition(String name, String field) {
+    this.name = name;
+    this.field = field;
+  }
+
+  /**
+   * Builds a dimension with fixed bucket boundaries.
+   *
+   * @param name - dimension name.
+   * @param field - grouped field.
+   * @param boundaries - ascending bucket boundaries.
+   * @return FacetDefinition object.
+   */
+  public static FacetDefinition withBoundaries(String name, String field, Integer... boundaries) {
+    FacetDefinition definition = new FacetDefinition(name, field);
+    definition.setBoundaries(Arrays.asList(boundaries));
+    return definition;
+  }
+
+  /**
+   * Builds a dimension with automatic buckets.
+   *
+   * @param name - dimension name.
+   * @param field - grouped field.
+   * @param buckets - number of buckets.
+   * @return FacetDefinition object.
+   */
+  public static FacetDefinition withAutoBuckets(String name, String field, int buckets) {
+    FacetDefinition definition = new FacetDefinition(name, field);
+    definition.setBuckets(buckets);
+    return definition;
+  }
+
+  /**
+   * Builds a dimension counting the most frequent values of the field.
+   *
+   * @param name - dimension name.
+   * @param field - grouped field.
+   * @param top - number of values.
+   * @return FacetDefinition object.
+   */
+  public static FacetDefinition withTopValues(String name, String field, int top) {
+    FacetDefinition definition = new FacetDefinition(name, field);
+    definition.setTop(top);
+    return definition;
+  }
+
+  /**
+   * Builds the $facet sub-pipeline of this dimension, which outputs documents with the bucket or
+   * value under `_id` and the number of movies under `count`.
+   *
+   * @return Facet object.
+   * @throws IncorrectDaoOperation if the definition has no name or field.
+   */
+  public Facet toFacet() {
+    if (name == null || name.isEmpty() || field == null || field.isEmpty()) {
+      throw new IncorrectDaoOperation("Facet dimensions require a `name` and a `field`");
+    }
+    String path = "$" + field;
+    BsonField count = new BsonField("count", new Document("$sum", 1));
+    if (!boundaries.isEmpty()) {
+      return new Facet(
+          name,
+          Aggregates.bucket(
+              path, boundaries, new BucketOptions().defaultBucket("other").output(count)));
+    }
+    if (buckets > 0) {
+      return new Facet(
+          name, Aggregates.bucketAuto(path, buckets, new BucketAutoOptions().output(count)));
+    }
+    return new Facet(
+        name,
+        Aggregates.unwind(path),
+        Aggregates.sortByCount(path),
+        Aggregates.limit(top > 0 ? top : DEFAULT_TOP));
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getField() {
+    return field;
+  }
+
+  public void setField(String field) {
+    this.field = field;
+  }
+
+  public List<Integer> getBoundaries() {
+    return boundaries;
+  }
+
+  public void setBoundaries(List<Integer> boundaries) {
+    this.boundaries = boundaries;
+  }
+
+  public int getBuckets() {
+    return buckets;
+  }
+
+  public void setBuckets(int buckets) {
+    this.buckets = buckets;
+  }
+
+  public int getTop() {
+    return top;
+  }
+
+  public void setTop(int top) {
+    this.top = top;
+  }
+}
@@ -0,0 +1,309 @@
+package mflix.api.daos;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexModel;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Creates the indexes declared by all DAOs, see {@link AbstractMFlixDao#getIndexModels()}, when
+ * the application starts, so that a freshly restored database does not silently fall back to
+ * collection scans. Indexes that already exist are left untouched, and indexes that cannot be
+ * created, e.g. a conflicting text index, are logged and reported instead of failing the startup.
+ * Indexes are built in the background, and the existing indexes superseded by the declared ones,
+ * see {@link AbstractMFlixDao#getReplacedIndexes()}, are dropped once those are built.
+ *
+ * <p>The index report compares the declared indexes with the output of $indexStats, listing
+ * missing indexes, undeclared indexes and indexes that have not been used since the server last
+ * started.
+ */
+@Component
+public class IndexManager {
+
+  private static final String ID_INDEX = "_id_";
+
+  /** IndexNotFound server error code, the replaced index was already dropped. */
+  private static final int INDEX_NOT_FOUND = 27;
+
+  /** Placeholder for the text fields of a text index while its keys are normalized. */
+  private static final String TEXT_KEYS = "$text";
+
+  private final MongoDatabase db;
+
+  private final List<AbstractMFlixDao> daos;
+
+  @Value("${api.indexes.create_on_startup:true}")
+  private boolean createOnStartup = true;
+
+  private final Logger log;
+
+  @Autowired
+  public IndexManager(
+      MongoClient mongoClient,
+      @Value("${spring.mongodb.database}") String databaseName,
+      List<AbstractMFlixDao> daos) {
+    this.db = mongoClient.getDatabase(databaseName);
+    this.daos = daos;
+    this.log = LoggerFactory.getLogger(this.getClass());
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (!createOnStartup) {
+      return;
+    }
+    createIndexes();
+    for (Map.Entry<String, Map<String, Object>> report : getIndexReport().entrySet()) {
+      log.info("Indexes of `{}` collection: {}", report.getKey(), report.getValue());
+    }
+  }
+
+  /**
+   * Collects the indexes declared by all DAOs, by collection name.
+   *
+   * @return Map of collection names to the list of their declared indexes.
+   */
+  public Map<String, List<IndexModel>> getDeclaredIndexes() {
+    Map<String, List<IndexModel>> declared = new LinkedHashMap<>();
+    for (AbstractMFlixDao dao : daos) {
+      for (Map.Entry<String, List<IndexModel>> indexes : dao.getIndexModels().entrySet()) {
+        declared
+            .computeIfAbsent(indexes.getKey(), key -> new ArrayList<>())
+            .addAll(indexes.getValue());
+      }
+    }
+    return declared;
+  }
+
+  /**
+   * Collects the indexes replaced by the declared ones of all DAOs, by collection name.
+   *
+   * @return Map of collection names to the list of replaced index names.
+   */
+  public Map<String, List<String>> getReplacedIndexes() {
+    Map<String, List<String>> replaced = new LinkedHashMap<>();
+    for (AbstractMFlixDao dao : daos) {
+      for (Map.Entry<String, List<String>> indexes : dao.getReplacedIndexes().entrySet()) {
+        replaced
+            .computeIfAbsent(indexes.getKey(), key -> new ArrayList<>())
+            .addAll(indexes.getValue());
+      }
+    }
+    return replaced;
+  }
+
+  /**
+   * Creates all declared indexes, one at a time, so that an index that cannot be created does not
+   * prevent the creation of the others. The replaced indexes of a collection are dropped only if
+   * all its declared indexes exist.
+   *
+   * @return Map of index keys, or names of the replaced indexes, to the error message, for the
+   *     indexes that could not be created or dropped.
+   */
+  public Map<String, String> createIndexes() {
+    Map<String, String> failures = new LinkedHashMap<>();
+    Map<String, List<String>> replaced = getReplacedIndexes();
+    for (Map.Entry<String, List<IndexModel>> indexes : getDeclaredIndexes().entrySet()) {
+      MongoCollection<Document> collection = db.getCollection(indexes.getKey());
+      boolean created = true;
+      for (IndexModel index : indexes.getValue()) {
+        try {
+          collection.createIndex(index.getKeys(), index.getOptions());
+        } catch (MongoException e) {
+          String keys = indexes.getKey() + " " + keys(index);
+          log.warn("Cannot create index {}: {}", keys, e.getMessage());
+          failures.put(keys, e.getMessage());
+          created = false;
+        }
+      }
+      if (created) {
+        for (String name : replaced.getOrDefault(indexes.getKey(), Collections.emptyList())) {
+          dropIndex(collection, indexes.getKey() + " " + name, name, failures);
+        }
+      }
+    }
+    return failures;
+  }
+
+  private void dropIndex(
+      MongoCollection<Document> collection,
+      String index,
+      String name,
+      Map<String, String> failures) {
+    try {
+      collection.dropIndex(name);
+      log.info("Dropped replaced index {}", index);
+    } catch (MongoException e) {
+      if (e.getCode() != INDEX_NOT_FOUND) {
+        log.warn("Cannot drop index {}: {}", index, e.getMessage());
+        failures.put(index, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Compares the declared indexes of each collection with the indexes reported by $indexStats.
+   *
+   * @return Map of collection names to their report: usage `ops` per index name under `indexes`
+   *     key, declared but missing index keys under `missing` key, existing but not declared index
+   *     names under `undeclared` key and index names without any use since the server started
+   *     under `unused` key.
+   */
+  public Map<String, Map<String, Object>> getIndexReport() {
+    Map<String, Map<String, Object>> report = new LinkedHashMap<>();
+    for (Map.Entry<String, List<IndexModel>> indexes : getDeclaredIndexes().entrySet()) {
+      Map<String, Object> collectionReport = new HashMap<>();
+      report.put(indexes.getKey(), collectionReport);
+
+      MongoCollection<Document> collection = db.getCollection(indexes.getKey());
+      List<Document> stats = new ArrayList<>();
+      Map<String, String> existing = new HashMap<>();
+      try {
+        collection
+            .aggregate(Collections.singletonList(new Document("$indexStats", new Document())))
+            .into(stats);
+        // $indexStats omits the text index weights, which listIndexes reports
+        for (Document index : collection.listIndexes()) {
+          existing.put(keys(index), index.getString("name"));
+        }
+      } catch (MongoException e) {
+        collectionReport.put("error", e.getMessage());
+        continue;
+      }
+
+      Map<String, Object> usage = new LinkedHashMap<>();
+      List<String> unused = new ArrayList<>();
+      for (Document stat : stats) {
+        String name = stat.getString("name");
+        Document accesses = (Document) stat.get("accesses");
+        long ops = accesses == null ? 0 : ((Number) accesses.get("ops")).longValue();
+        usage.put(name, ops);
+        if (ops == 0 && !ID_INDEX.equals(name)) {
+          unused.add(name);
+        }
+      }
+
+      List<String> missing = new ArrayList<>();
+      List<String> declaredNames = new ArrayList<>();
+      for (IndexModel index : indexes.getValue()) {
+        String name = existing.get(keys(index));
+        if (name == null) {
+          missing.add(keys(index));
+        } else {
+          declaredNames.add(name);
+        }
+      }
+      List<String> undeclared = new ArrayList<>(existing.values());
+      undeclared.removeAll(declaredNames);
+      undeclared.remove(ID_INDEX);
+
+      collectionReport.put("indexes", usage);
+      collectionReport.put("missing", missing);
+      collectionReport.put("undeclared", undeclared);
+      collectionReport.put("unused", unused);
+      if (!missing.isEmpty()) {
+        log.warn("Missing indexes in `{}` collection: {}", indexes.getKey(), missing);
+      }
+    }
+    return report;
+  }
+
+  /**
+   * Normalizes declared index keys. The fields of a text index are listed with their weights, so
+   * that text indexes over different fields do not compare as equal.
+   */
+  private String keys(IndexModel index) {
+    BsonDocument keys = index.getKeys().toBsonDocument(BsonDocument.class, db.getCodecRegistry());
+    List<String> fields = new ArrayList<>();
+    Map<String, Integer> weights = new TreeMap<>();
+    for (Map.Entry<String, BsonValue> key : keys.entrySet()) {
+      BsonValue direction = key.getValue();
+      if (direction.isString() && "text".equals(direction.asString().getValue())) {
+        if (weights.isEmpty()) {
+          fields.add(TEXT_KEYS);
+        }
+        weights.put(key.getKey(), 1);
+        continue;
+      }
+      fields.add(
+          key.getKey()
+              + ":"
+              + (direction.isNumber()
+                  ? (int) Math.signum(direction.asNumber().doubleValue())
+                  : direction.asString().getValue()));
+    }
+    Bson declaredWeights = index.getOptions().getWeights();
+    if (declaredWeights != null) {
+      for (Map.Entry<String, BsonValue> weight :
+          declaredWeights.toBsonDocument(BsonDocument.class, db.getCodecRegistry()).entrySet()) {
+        weights.put(weight.getKey(), weight.getValue().asNumber().intValue());
+      }
+    }
+    return textKeys(fields, weights);
+  }
+
+  /**
+   * Normalizes index keys as listed by the server, which stores text indexes as `_fts` and `_ftsx`
+   * keys, with the text fields in the `weights` option.
+   */
+  private static String keys(Document index) {
+    Document keys = (Document) index.get("key");
+    List<String> fields = new ArrayList<>();
+    Map<String, Integer> weights = new TreeMap<>();
+    for (Map.Entry<String, Object> key : keys.entrySet()) {
+      Object direction = key.getValue();
+      if ("_fts".equals(key.getKey())) {
+        fields.add(TEXT_KEYS);
+        Document indexWeights = (Document) index.get("weights");
+        if (indexWeights != null) {
+          for (Map.Entry<String, Object> weight : indexWeights.entrySet()) {
+            weights.put(weight.getKey(), ((Number) weight.getValue()).intValue());
+          }
+        }
+        continue;
+      }
+      if ("_ftsx".equals(key.getKey())) {
+        continue;
+      }
+      fields.add(
+          key.getKey()
+              + ":"
+              + (direction instanceof Number
+                  ? (int) Math.signum(((Number) direction).doubleValue())
+                  : direction));
+    }
+    return textKeys(fields, weights);
+  }
+
+  private static String textKeys(List<String> fields, Map<String, Integer> weights) {
+    String joined = String.join(",", fields);
+    if (weights.isEmpty()) {
+      return joined;
+    }
+    List<String> textFields = new ArrayList<>();
+    for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+      textFields.add(weight.getKey() + ":" + weight.getValue());
+    }
+    return joined.replace(TEXT_KEYS, "text(" + String.join(",", textFields) + ")");
+  }
+}
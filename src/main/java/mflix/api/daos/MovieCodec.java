@@ -0,0 +1,359 @@
+package mflix.api.daos;
+
+import mflix.api.models.Comment;
+import mflix.api.models.IMDB;
+import mflix.api.models.Movie;
+import mflix.api.models.RottenTomatoes;
+import mflix.api.models.ViewerRating;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Decodes movie documents straight from the BSON stream into {@link Movie} objects, without
+ * building an intermediate {@link org.bson.Document}. Like {@link
+ * MovieDocumentMapper#mapToMovie(org.bson.conversions.Bson)}, it tolerates rating and votes fields
+ * stored either as numbers or as strings. It differs from the mapper in that it reads the `year`,
+ * leaves a missing title null instead of "null", and converts numeric titles without grouping
+ * separators, e.g. "1984" instead of "1,984".
+ *
+ * <p>Encoding writes the same fields back, leaving out the ones that are not set.
+ */
+public class MovieCodec implements Codec<Movie> {
+
+  private final Codec<Document> documentCodec;
+
+  public MovieCodec() {
+    super();
+    this.documentCodec = new DocumentCodec();
+  }
+
+  @Override
+  public void encode(BsonWriter bsonWriter, Movie movie, EncoderContext encoderContext) {
+    Document movieDoc = new Document();
+    if (null != movie.getId()) {
+      movieDoc.put("_id", new ObjectId(movie.getId()));
+    }
+    putIfSet(movieDoc, "title", movie.getTitle());
+    if (0 != movie.getYear()) {
+      movieDoc.put("year", movie.getYear());
+    }
+    putIfSet(movieDoc, "cast", movie.getCast());
+    putIfSet(movieDoc, "plot", movie.getPlog());
+    putIfSet(movieDoc, "fullplot", movie.getFullPlot());
+    putIfSet(movieDoc, "lastupdated", movie.getLastUpdated());
+    putIfSet(movieDoc, "type", movie.getType());
+    putIfSet(movieDoc, "directors", movie.getDirectors());
+    putIfSet(movieDoc, "writers", movie.getWriters());
+    if (null != movie.getImdb()) {
+      IMDB imdb = movie.getImdb();
+      movieDoc.put(
+          "imdb",
+          new Document("id", imdb.getId())
+              .append("rating", imdb.getRating())
+              .append("votes", imdb.getVotes()));
+    }
+    putIfSet(movieDoc, "countries", movie.getCountries());
+    putIfSet(movieDoc, "genres", movie.getGenres());
+    if (null != movie.getTomatoes()) {
+      movieDoc.put("tomatoes", toDocument(movie.getTomatoes()));
+    }
+    putIfSet(movieDoc, "poster", movie.getPoster());
+    if (null != movie.getComments()) {
+      List<Document> comments = new ArrayList<>();
+      for (Comment comment : movie.getComments()) {
+        comments.add(toDocument(comment));
+      }
+      movieDoc.put("comments", comments);
+    }
+    putIfSet(movieDoc, "comments_count", movie.getCommentsCount());
+
+    documentCodec.encode(bsonWriter, movieDoc, encoderContext);
+  }
+
+  @Override
+  public Class<Movie> getEncoderClass() {
+    return Movie.class;
+  }
+
+  @Override
+  public Movie decode(BsonReader reader, DecoderContext decoderContext) {
+    Movie movie = new Movie();
+    reader.readStartDocument();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      String name = reader.readName();
+      if (reader.getCurrentBsonType() == BsonType.NULL) {
+        reader.readNull();
+        continue;
+      }
+      switch (name) {
+        case "_id":
+          movie.setId(reader.readObjectId().toHexString());
+          break;
+        case "title":
+          movie.setTitle(readText(reader));
+          break;
+        case "year":
+          movie.setYear((int) readNumber(reader));
+          break;
+        case "cast":
+          movie.setCast(readStrings(reader));
+          break;
+        case "plot":
+          movie.setPlog(readText(reader));
+          break;
+        case "fullplot":
+          movie.setFullPlot(readText(reader));
+          break;
+        case "lastupdated":
+          movie.setLastUpdated(readDate(reader));
+          break;
+        case "type":
+          movie.setType(readText(reader));
+          break;
+        case "directors":
+          movie.setDirectors(readStrings(reader));
+          break;
+        case "writers":
+          movie.setWriters(readStrings(reader));
+          break;
+        case "imdb":
+          movie.setImdb(readIMDB(reader));
+          break;
+        case "countries":
+          movie.setCountries(readStrings(reader));
+          break;
+        case "genres":
+          movie.setGenres(readStrings(reader));
+          break;
+        case "tomatoes":
+          movie.setTomatoes(readRottenTomatoes(reader));
+          break;
+        case "poster":
+          movie.setPoster(readText(reader));
+          break;
+        case "comments":
+          movie.setComments(readComments(reader));
+          break;
+        case "comments_count":
+          movie.setCommentsCount((int) readNumber(reader));
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.readEndDocument();
+    return movie;
+  }
+
+  private static Document toDocument(RottenTomatoes tomatoes) {
+    Document tomatoesDoc = new Document();
+    putIfSet(tomatoesDoc, "lastupdated", tomatoes.getLastUpdated());
+    ViewerRating viewer = tomatoes.getViewer();
+    if (null != viewer) {
+      Document viewerDoc = new Document("rating", viewer.getRating());
+      putIfSet(viewerDoc, "numReviews", viewer.getNumReviews());
+      tomatoesDoc.put("viewer", viewerDoc);
+    }
+    return tomatoesDoc;
+  }
+
+  private static Document toDocument(Comment comment) {
+    Document commentDoc = new Document();
+    putIfSet(commentDoc, "_id", comment.getOid());
+    putIfSet(commentDoc, "text", comment.getText());
+    putIfSet(commentDoc, "email", comment.getEmail());
+    putIfSet(commentDoc, "date", comment.getDate());
+    putIfSet(commentDoc, "movie_id", comment.getMovieObjectId());
+    putIfSet(commentDoc, "name", comment.getName());
+    return commentDoc;
+  }
+
+  private static void putIfSet(Document document, String key, Object value) {
+    if (null != value) {
+      document.put(key, value);
+    }
+  }
+
+  private static IMDB readIMDB(BsonReader reader) {
+    if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+      reader.skipValue();
+      return null;
+    }
+    IMDB imdb = new IMDB();
+    reader.readStartDocument();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      switch (reader.readName()) {
+        case "id":
+          imdb.setId((int) readNumber(reader));
+          break;
+        case "rating":
+          imdb.setRating(readNumber(reader));
+          break;
+        case "votes":
+          imdb.setVotes((int) readNumber(reader));
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.readEndDocument();
+    return imdb;
+  }
+
+  private static RottenTomatoes readRottenTomatoes(BsonReader reader) {
+    if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+      reader.skipValue();
+      return null;
+    }
+    RottenTomatoes tomatoes = new RottenTomatoes();
+    reader.readStartDocument();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      String name = reader.readName();
+      if ("lastupdated".equals(name)) {
+        tomatoes.setLastUpdated(readDate(reader));
+      } else if ("viewer".equals(name) && reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+        tomatoes.setViewer(readViewerRating(reader));
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.readEndDocument();
+    return tomatoes;
+  }
+
+  private static ViewerRating readViewerRating(BsonReader reader) {
+    ViewerRating viewer = new ViewerRating();
+    reader.readStartDocument();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      String name = reader.readName();
+      if ("numReviews".equals(name)) {
+        viewer.setNumReviews((int) readNumber(reader));
+      } else if ("rating".equals(name)) {
+        viewer.setRating(readNumber(reader));
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.readEndDocument();
+    return viewer;
+  }
+
+  private static List<Comment> readComments(BsonReader reader) {
+    if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+      reader.skipValue();
+      return null;
+    }
+    List<Comment> comments = new ArrayList<>();
+    reader.readStartArray();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      Comment comment = new Comment();
+      reader.readStartDocument();
+      while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+        switch (reader.readName()) {
+          case "_id":
+            comment.setOid(reader.readObjectId());
+            break;
+          case "text":
+            comment.setText(readText(reader));
+            break;
+          case "email":
+            comment.setEmail(readText(reader));
+            break;
+          case "date":
+            comment.setDate(readDate(reader));
+            break;
+          case "movie_id":
+            comment.setMovieObjectId(reader.readObjectId());
+            break;
+          case "name":
+            comment.setName(readText(reader));
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.readEndDocument();
+      comments.add(comment);
+    }
+    reader.readEndArray();
+    return comments;
+  }
+
+  private static List<String> readStrings(BsonReader reader) {
+    if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+      reader.skipValue();
+      return null;
+    }
+    List<String> values = new ArrayList<>();
+    reader.readStartArray();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      values.add(readText(reader));
+    }
+    reader.readEndArray();
+    return values;
+  }
+
+  /** Reads a string value. Numeric values, such as titles like 1984, are converted to string. */
+  private static String readText(BsonReader reader) {
+    switch (reader.getCurrentBsonType()) {
+      case STRING:
+        return reader.readString();
+      case INT32:
+        return String.valueOf(reader.readInt32());
+      case INT64:
+        return String.valueOf(reader.readInt64());
+      case DOUBLE:
+        return String.valueOf(reader.readDouble());
+      default:
+        reader.skipValue();
+        return null;
+    }
+  }
+
+  /** Reads a numeric value stored either as a number or as a string. Empty strings read as 0. */
+  private static double readNumber(BsonReader reader) {
+    switch (reader.getCurrentBsonType()) {
+      case INT32:
+        return reader.readInt32();
+      case INT64:
+        return reader.readInt64();
+      case DOUBLE:
+        return reader.readDouble();
+      case DECIMAL128:
+        return reader.readDecimal128().bigDecimalValue().doubleValue();
+      case STRING:
+        String value = reader.readString();
+        try {
+          return "".equals(value) ? 0 : Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      default:
+        reader.skipValue();
+        return 0;
+    }
+  }
+
+  private static Date readDate(BsonReader reader) {
+    switch (reader.getCurrentBsonType()) {
+      case DATE_TIME:
+        return new Date(reader.readDateTime());
+      case STRING:
+        return MovieDocumentMapper.parseDate(reader.readString());
+      default:
+        reader.skipValue();
+        return null;
+    }
+  }
+}
@@ -1,9 +1,15 @@
 package mflix.api.daos;
 
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.*;
+import mflix.api.models.Movie;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,8 +17,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static com.mongodb.client.model.Aggregates.lookup;
 import static com.mongodb.client.model.Aggregates.match;
@@ -21,19 +31,44 @@ import static com.mongodb.client.model.Filters.expr;
 import static com.mongodb.client.model.Projections.fields;
 import static com.mongodb.client.model.Projections.include;
 import static java.util.Arrays.asList;
+import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
 
 @Component
 public class MovieDao extends AbstractMFlixDao {
 
     public static String MOVIES_COLLECTION = "movies";
 
+    public static String DEFAULT_SORT_KEY = "tomatoes.viewer.numReviews";
+
+    /**
+     * Covers country lookups, which only project `title` and `_id`.
+     */
+    public static final Bson COUNTRIES_TITLE_INDEX = Indexes.ascending("countries", "title", "_id");
+
+    /**
+     * Name of the $facet output holding the number of matching movies, which facet dimensions
+     * cannot use.
+     */
+    public static final String FACET_COUNT = "count";
+
     private MongoCollection<Document> moviesCollection;
 
+    private MongoCollection<Movie> movieModelCollection;
+
+    @Value("${api.movies.comments.lookup_limit:50}")
+    private int commentsLookupLimit = 50;
+
     @Autowired
     public MovieDao(
             MongoClient mongoClient, @Value("${spring.mongodb.database}") String databaseName) {
         super(mongoClient, databaseName);
         moviesCollection = db.getCollection(MOVIES_COLLECTION);
+        CodecRegistry movieCodecRegistry =
+                fromRegistries(
+                        fromCodecs(new MovieCodec()), MongoClientSettings.getDefaultCodecRegistry());
+        movieModelCollection =
+                db.getCollection(MOVIES_COLLECTION, Movie.class).withCodecRegistry(movieCodecRegistry);
     }
 
     @SuppressWarnings("unchecked")
@@ -59,7 +94,9 @@ public class MovieDao extends AbstractMFlixDao {
     }
 
     /**
-     * Gets a movie object from the database.
+     * Gets a movie object from the database, along with its `commentsLookupLimit` most recent
+     * comments under `comments` key and the total number of comments under `comments_count` key.
+     * Older comments can be fetched with {@link CommentDao#getMovieComments(String, int, String)}.
      *
      * @param movieId - Movie identifier string.
      * @return Document object or null.
@@ -84,6 +121,9 @@ public class MovieDao extends AbstractMFlixDao {
         List<Bson> commentsPipeline = new ArrayList<>();
         commentsPipeline.add(match(expr(new Document("$eq",asList("$movie_id","$$par_m_id")))));
         commentsPipeline.add(Aggregates.sort(Sorts.descending("date")));
+        // bound the number of embedded comments, so that popular movies do not produce huge
+        // documents
+        commentsPipeline.add(Aggregates.limit(commentsLookupLimit));
 
         List<Variable<String>> parList = new ArrayList<>();
         parList.add(new Variable("par_m_id", "$_id"));
@@ -91,6 +131,22 @@ public class MovieDao extends AbstractMFlixDao {
 
         pipeline.add(commentsLookup);
 
+        List<Bson> countPipeline = new ArrayList<>();
+        countPipeline.add(match(expr(new Document("$eq",asList("$movie_id","$$par_m_id")))));
+        countPipeline.add(Aggregates.count("count"));
+        pipeline.add(lookup("comments", parList, countPipeline, "comments_count"));
+        pipeline.add(
+                Aggregates.addFields(
+                        new Field<>(
+                                "comments_count",
+                                new Document(
+                                        "$ifNull",
+                                        asList(
+                                                new Document(
+                                                        "$arrayElemAt",
+                                                        asList("$comments_count.count", 0)),
+                                                0)))));
+
         Document movie = moviesCollection.aggregate(pipeline).first();
 
         return movie;
@@ -106,9 +162,8 @@ public class MovieDao extends AbstractMFlixDao {
      */
     @SuppressWarnings("UnnecessaryLocalVariable")
     public List<Document> getMovies(int limit, int skip) {
-        String defaultSortKey = "tomatoes.viewer.numReviews";
         List<Document> movies =
-                new ArrayList<>(getMovies(limit, skip, Sorts.descending(defaultSortKey)));
+                new ArrayList<>(getMovies(limit, skip, Sorts.descending(DEFAULT_SORT_KEY, "_id")));
         return movies;
     }
 
@@ -126,6 +181,7 @@ public class MovieDao extends AbstractMFlixDao {
 
         moviesCollection
                 .find()
+                .projection(MovieProjection.LIST.projection())
                 .limit(limit)
                 .skip(skip)
                 .sort(sort)
@@ -135,6 +191,20 @@ public class MovieDao extends AbstractMFlixDao {
         return movies;
     }
 
+    /**
+     * Returns the page of movies that follows the `after` page token, using the default descending
+     * sort key `tomatoes.viewer.numReviews` and `_id` as tie breaker. Instead of skipping over the
+     * previous pages, the token is translated into a range filter, so each page costs the same
+     * number of index scans regardless of its depth.
+     *
+     * @param limit - max number of returned documents.
+     * @param after - page token of the previous page, or null for the first page.
+     * @return list of documents.
+     */
+    public List<Document> getMovies(int limit, String after) {
+        return seekPage(new Document(), DEFAULT_SORT_KEY, limit, after);
+    }
+
     /**
      * For a given a country, return all the movies that match that country.
      *
@@ -148,11 +218,173 @@ public class MovieDao extends AbstractMFlixDao {
         //TODO> Ticket: Projection - implement the query and projection required by the unit test
         List<Document> movies = new ArrayList<>();
 
+        // not hinted, so that the lookup still works before the covering index is built
         moviesCollection.find(queryFilter).projection(projection).into(movies);
 
         return movies;
     }
 
+    /**
+     * Explains the query of {@link #getMoviesByCountry(String...)}. Single country lookups are
+     * answered from the `countries_1_title_1__id_1` index alone, without examining any document.
+     *
+     * @param country - Country string value to be matched.
+     * @return explain command result with `executionStats`.
+     */
+    public Document explainMoviesByCountry(String... country) {
+        return explainFind(
+                MOVIES_COLLECTION,
+                all("countries", country),
+                fields(include("title")),
+                null,
+                null,
+                0);
+    }
+
+    /**
+     * Explains the listing, cast, genres, text search and countries queries of this DAO, for the
+     * first page of results, and the listing and cast queries for a page continued with an `after`
+     * token.
+     *
+     * @return Map of query names to their plan summary.
+     */
+    @Override
+    public Map<String, QueryPlan> explainQueries() {
+        int limit = 20;
+        Bson sort = Sorts.descending(DEFAULT_SORT_KEY, "_id");
+        Bson projection = MovieProjection.LIST.projection();
+        Map<String, QueryPlan> plans = new LinkedHashMap<>();
+        plans.put(
+                "movies.list",
+                new QueryPlan(explainFind(
+                        MOVIES_COLLECTION, new Document(), projection, sort, null, limit)));
+        plans.put(
+                "movies.cast",
+                new QueryPlan(explainFind(
+                        MOVIES_COLLECTION, Filters.in("cast", "Tom Hanks"), projection, sort, null,
+                        limit)));
+        plans.put(
+                "movies.genres",
+                new QueryPlan(explainFind(
+                        MOVIES_COLLECTION, Filters.in("genres", "Comedy"), projection, sort, null,
+                        limit)));
+        plans.put(
+                "movies.text",
+                new QueryPlan(explainFind(
+                        MOVIES_COLLECTION,
+                        Filters.text("love"),
+                        MovieProjection.LIST.projectionWithTextScore("score"),
+                        Sorts.orderBy(Sorts.metaTextScore("score"), Sorts.descending("_id")),
+                        null,
+                        limit)));
+        plans.put("movies.countries", new QueryPlan(explainMoviesByCountry("Kosovo")));
+        // pages continued with an `after` token add the keyset seek filter
+        Bson after = new PageToken(1000, new ObjectId()).seekFilter(DEFAULT_SORT_KEY);
+        plans.put(
+                "movies.list.after",
+                new QueryPlan(explainFind(
+                        MOVIES_COLLECTION, after, projection, sort, null, limit)));
+        plans.put(
+                "movies.cast.after",
+                new QueryPlan(explainFind(
+                        MOVIES_COLLECTION, Filters.and(Filters.in("cast", "Tom Hanks"), after),
+                        projection, sort, null, limit)));
+        return plans;
+    }
+
+    /**
+     * Declares the indexes used by the movies queries: the text search index, the default listing
+     * sort, cast and genres lookups sorted by the default sort key, and the covering index of
+     * country lookups. The default listing sort index replaces the `getMovies` index of the
+     * dataset, over the sort key only, which cannot serve the `_id` tie breaker of keyset pages.
+     *
+     * @return Map with the list of `movies` collection indexes.
+     */
+    @Override
+    public Map<String, List<IndexModel>> getIndexModels() {
+        List<IndexModel> indexes = new ArrayList<>();
+        // the dataset ships with a wildcard text index, and a collection can only have one
+        indexes.add(backgroundIndex(Indexes.text("$**")));
+        indexes.add(backgroundIndex(Indexes.descending(DEFAULT_SORT_KEY, "_id")));
+        indexes.add(
+                backgroundIndex(Indexes.compoundIndex(
+                        Indexes.ascending("cast"), Indexes.descending(DEFAULT_SORT_KEY, "_id"))));
+        indexes.add(
+                backgroundIndex(Indexes.compoundIndex(
+                        Indexes.ascending("genres"), Indexes.descending(DEFAULT_SORT_KEY, "_id"))));
+        indexes.add(backgroundIndex(COUNTRIES_TITLE_INDEX));
+        return Collections.singletonMap(MOVIES_COLLECTION, indexes);
+    }
+
+    /**
+     * The dataset `getMovies` index, {tomatoes.viewer.numReviews: -1}, is a prefix of the default
+     * listing sort index.
+     *
+     * @return Map with the replaced `movies` collection index.
+     */
+    @Override
+    public Map<String, List<String>> getReplacedIndexes() {
+        return Collections.singletonMap(
+                MOVIES_COLLECTION, Collections.singletonList("getMovies"));
+    }
+
+    /**
+     * Streams all movies that match the export filter to `action`, in ascending `_id` order, as raw
+     * BSON documents that are never decoded into Document objects. Any of the filter arguments can be
+     * null, in which case it does not restrict the export.
+     *
+     * <p>Since results are ordered by `_id`, an interrupted export can be resumed by passing the
+     * `_id` of the last exported movie as `afterId`.
+     *
+     * @param countries    - movies having any of these countries.
+     * @param genres       - movies having any of these genres.
+     * @param updatedSince - movies with `lastupdated` at or after this date.
+     * @param afterId      - movies with `_id` greater than this one.
+     * @param fields       - fields to be exported, all fields if null or empty.
+     * @param batchSize    - number of documents returned by each cursor batch.
+     * @param action       - consumer of each movie document.
+     */
+    public void exportMovies(
+            List<String> countries,
+            List<String> genres,
+            Date updatedSince,
+            ObjectId afterId,
+            List<String> fields,
+            int batchSize,
+            Consumer<RawBsonDocument> action) {
+        List<Bson> filters = new ArrayList<>();
+        if (countries != null && !countries.isEmpty()) {
+            filters.add(Filters.in("countries", countries));
+        }
+        if (genres != null && !genres.isEmpty()) {
+            filters.add(Filters.in("genres", genres));
+        }
+        if (updatedSince != null) {
+            // not yet migrated documents store `lastupdated` as a sortable date string
+            filters.add(
+                    Filters.or(
+                            Filters.gte("lastupdated", updatedSince),
+                            Filters.gte("lastupdated", MovieDocumentMapper.formatDate(updatedSince))));
+        }
+        if (afterId != null) {
+            filters.add(Filters.gt("_id", afterId));
+        }
+
+        FindIterable<RawBsonDocument> export =
+                moviesCollection
+                        .withDocumentClass(RawBsonDocument.class)
+                        .find(filters.isEmpty() ? new Document() : Filters.and(filters))
+                        .sort(Sorts.ascending("_id"))
+                        .batchSize(batchSize);
+        if (fields != null && !fields.isEmpty()) {
+            export = export.projection(include(fields));
+        }
+
+        try (MongoCursor<RawBsonDocument> cursor = export.iterator()) {
+            cursor.forEachRemaining(action);
+        }
+    }
+
     /**
      * This method will execute the following mongo shell query: db.movies.find({"$text": { "$search":
      * `keywords` }}, {"score": {"$meta": "textScore"}}).sort({"score": {"$meta": "textScore"}})
@@ -164,8 +396,8 @@ public class MovieDao extends AbstractMFlixDao {
      */
     public List<Document> getMoviesByText(int limit, int skip, String keywords) {
         Bson textFilter = Filters.text(keywords);
-        Bson projection = Projections.metaTextScore("score");
-        Bson sort = Sorts.metaTextScore("score");
+        Bson projection = MovieProjection.LIST.projectionWithTextScore("score");
+        Bson sort = Sorts.orderBy(Sorts.metaTextScore("score"), Sorts.descending("_id"));
         List<Document> movies = new ArrayList<>();
         moviesCollection
                 .find(textFilter)
@@ -178,6 +410,35 @@ public class MovieDao extends AbstractMFlixDao {
         return movies;
     }
 
+    /**
+     * Returns the page of text search results that follows the `after` page token. Since the text
+     * score cannot be used in a find filter, the score is materialized with an $addFields stage and
+     * the token, keyed on `score` plus `_id`, is applied as a range $match before sort and limit:
+     *
+     * <p>db.movies.aggregate([{$match: {$text: ...}}, {$addFields: {score: {$meta: "textScore"}}},
+     * {$match: {after token}}, {$sort: {score: -1, _id: -1}}, {$limit: limit}])
+     *
+     * @param limit    - integer value of number of documents to be limited to.
+     * @param after    - page token of the previous page, or null for the first page.
+     * @param keywords - text matching keywords or terms
+     * @return List of query matching Document objects
+     */
+    public List<Document> getMoviesByText(int limit, String after, String keywords) {
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(match(Filters.text(keywords)));
+        pipeline.add(Aggregates.addFields(new Field<>("score", new Document("$meta", "textScore"))));
+        if (after != null) {
+            pipeline.add(match(PageToken.decode(after).seekFilter("score")));
+        }
+        pipeline.add(Aggregates.sort(Sorts.descending("score", "_id")));
+        pipeline.add(Aggregates.limit(limit));
+        pipeline.add(projectStage(MovieProjection.LIST, "score"));
+
+        List<Document> movies = new ArrayList<>();
+        moviesCollection.aggregate(pipeline).iterator().forEachRemaining(movies::add);
+        return movies;
+    }
+
     /**
      * Finds all movies that contain any of the `casts` members, sorted in descending by the `sortKey`
      * field.
@@ -190,12 +451,13 @@ public class MovieDao extends AbstractMFlixDao {
      */
     public List<Document> getMoviesByCast(String sortKey, int limit, int skip, String... cast) {
         Bson castFilter = Filters.in("cast", cast);
-        Bson sort = Sorts.descending(sortKey);
+        Bson sort = Sorts.descending(sortKey, "_id");
         //TODO> Ticket: Subfield Text Search - implement the expected cast
         // filter and sort
         List<Document> movies = new ArrayList<>();
         moviesCollection
                 .find(castFilter)
+                .projection(MovieProjection.LIST.projection())
                 .sort(sort)
                 .limit(limit)
                 .skip(skip)
@@ -204,6 +466,20 @@ public class MovieDao extends AbstractMFlixDao {
         return movies;
     }
 
+    /**
+     * Finds the page of movies that contain any of the `cast` members and follows the `after` page
+     * token, sorted in descending order by the `sortKey` field and `_id`.
+     *
+     * @param sortKey - sort key.
+     * @param limit   - number of documents to be returned.
+     * @param after   - page token of the previous page, or null for the first page.
+     * @param cast    - cast selector.
+     * @return List of documents sorted by sortKey that match the cast selector.
+     */
+    public List<Document> getMoviesByCast(String sortKey, int limit, String after, String... cast) {
+        return seekPage(Filters.in("cast", cast), sortKey, limit, after);
+    }
+
     /**
      * Finds all movies that match the provide `genres`, sorted descending by the `sortKey` field.
      *
@@ -217,123 +493,396 @@ public class MovieDao extends AbstractMFlixDao {
         // query filter
         Bson castFilter = Filters.in("genres", genres);
         // sort key
-        Bson sort = Sorts.descending(sortKey);
+        Bson sort = Sorts.descending(sortKey, "_id");
         List<Document> movies = new ArrayList<>();
         // TODO > Ticket: Paging - implement the necessary cursor methods to support simple
         // pagination like skip and limit in the code below
-        moviesCollection.find(castFilter).skip(skip).limit(limit).sort(sort).iterator()
+        moviesCollection.find(castFilter).projection(MovieProjection.LIST.projection())
+                .sort(sort).skip(skip).limit(limit).iterator()
                 .forEachRemaining(movies::add);
         return movies;
     }
 
-    private ArrayList<Integer> runtimeBoundaries() {
-        ArrayList<Integer> runtimeBoundaries = new ArrayList<>();
-        runtimeBoundaries.add(0);
-        runtimeBoundaries.add(60);
-        runtimeBoundaries.add(90);
-        runtimeBoundaries.add(120);
-        runtimeBoundaries.add(180);
-        return runtimeBoundaries;
+    /**
+     * Finds the page of movies that match the provided `genres` and follows the `after` page token,
+     * sorted in descending order by the `sortKey` field and `_id`.
+     *
+     * @param sortKey - sorting key string.
+     * @param limit   - number of documents to be returned.
+     * @param after   - page token of the previous page, or null for the first page.
+     * @param genres  - genres matching string vargs.
+     * @return List of matching Document objects.
+     */
+    public List<Document> getMoviesByGenre(String sortKey, int limit, String after, String... genres) {
+        return seekPage(Filters.in("genres", genres), sortKey, limit, after);
+    }
+
+    /**
+     * Runs `filter` combined with the range filter of the `after` page token, sorted in descending
+     * order by `sortKey` and `_id`.
+     */
+    private List<Document> seekPage(Bson filter, String sortKey, int limit, String after) {
+        return findPage(moviesCollection, filter, sortKey, limit, 0, after);
+    }
+
+    private <T> List<T> findPage(
+            MongoCollection<T> collection,
+            Bson filter,
+            String sortKey,
+            int limit,
+            int skip,
+            String after) {
+        return findPage(collection, filter, sortKey, limit, skip, after, MovieProjection.LIST);
     }
 
-    private ArrayList<Integer> ratingBoundaries() {
-        ArrayList<Integer> ratingBoundaries = new ArrayList<>();
-        ratingBoundaries.add(0);
-        ratingBoundaries.add(50);
-        ratingBoundaries.add(70);
-        ratingBoundaries.add(90);
-        ratingBoundaries.add(100);
-        return ratingBoundaries;
+    private <T> List<T> findPage(
+            MongoCollection<T> collection,
+            Bson filter,
+            String sortKey,
+            int limit,
+            int skip,
+            String after,
+            MovieProjection profile) {
+        List<T> movies = new ArrayList<>();
+        findPage(collection, filter, sortKey, limit, skip, after, profile, movies::add);
+        return movies;
     }
 
     /**
-     * This method is the java implementation of the following mongo shell aggregation pipeline {
-     * "$bucket": { "groupBy": "$runtime", "boundaries": [0, 60, 90, 120, 180], "default": "other",
-     * "output": { "count": {"$sum": 1} } } }
+     * Runs a page query, fetching the fields of the `profile` projection, by default the {@link
+     * MovieProjection#LIST} profile.
      */
-    private Bson buildRuntimeBucketStage() {
+    private <T> void findPage(
+            MongoCollection<T> collection,
+            Bson filter,
+            String sortKey,
+            int limit,
+            int skip,
+            String after,
+            MovieProjection profile,
+            Consumer<? super T> action) {
+        if (after != null) {
+            filter = Filters.and(filter, PageToken.decode(after).seekFilter(sortKey));
+        }
+        try (MongoCursor<T> cursor =
+                     collection
+                             .find(filter)
+                             .projection(profile.projection())
+                             .sort(Sorts.descending(sortKey, "_id"))
+                             .skip(skip)
+                             .limit(limit)
+                             .iterator()) {
+            cursor.forEachRemaining(action);
+        }
+    }
 
-        BucketOptions bucketOptions = new BucketOptions();
-        bucketOptions.defaultBucket("other");
-        BsonField count = new BsonField("count", new Document("$sum", 1));
-        bucketOptions.output(count);
-        return Aggregates.bucket("$runtime", runtimeBoundaries(), bucketOptions);
+    /**
+     * Streams a page of movies sorted by the default descending sort key to `action`, one Movie at
+     * a time as they are read from the cursor, so that no list of the whole page is held in memory.
+     *
+     * @param limit  - max number of returned movies.
+     * @param skip   - number of movies to be skipped.
+     * @param after  - page token of the previous page, or null.
+     * @param action - consumer of each Movie object.
+     * @see #getMovieModels(int, int, String)
+     */
+    public void streamMovieModels(int limit, int skip, String after, Consumer<Movie> action) {
+        findPage(
+                movieModelCollection, new Document(), DEFAULT_SORT_KEY, limit, skip, after,
+                MovieProjection.LIST, action);
     }
 
-    /*
-    This method is the java implementation of the following mongo shell aggregation pipeline
-    {
-     "$bucket": {
-       "groupBy": "$metacritic",
-       "boundaries": [0, 50, 70, 90, 100],
-       "default": "other",
-       "output": {
-       "count": {"$sum": 1}
-       }
-      }
-     }
+    /**
+     * Streams a page of movies that contain any of the `cast` members to `action`.
+     *
+     * @param sortKey - sort key.
+     * @param limit   - number of movies to be returned.
+     * @param skip    - number of movies to be skipped.
+     * @param after   - page token of the previous page, or null.
+     * @param action  - consumer of each Movie object.
+     * @param cast    - cast selector.
+     * @see #streamMovieModels(int, int, String, Consumer)
      */
-    private Bson buildRatingBucketStage() {
-        BucketOptions bucketOptions = new BucketOptions();
-        bucketOptions.defaultBucket("other");
-        BsonField count = new BsonField("count", new Document("$sum", 1));
-        bucketOptions.output(count);
-        return Aggregates.bucket("$metacritic", ratingBoundaries(), bucketOptions);
+    public void streamMovieModelsByCast(
+            String sortKey, int limit, int skip, String after, Consumer<Movie> action,
+            String... cast) {
+        findPage(
+                movieModelCollection, Filters.in("cast", cast), sortKey, limit, skip, after,
+                MovieProjection.LIST, action);
     }
 
     /**
-     * This method is the java implementation of the following mongo shell aggregation pipeline
-     * pipeline.aggregate([ {$match: {cast: {$in: ... }}}, {$sort: {tomatoes.viewer.numReviews: -1}},
-     * {$skip: ... }, {$limit: ... }, {$facet:{ runtime: {$bucket: ...}, rating: {$bucket: ...},
-     * movies: {$addFields: ...}, }} ])
+     * Streams a page of movies that match the provided `genres` to `action`.
+     *
+     * @param sortKey - sort key.
+     * @param limit   - number of movies to be returned.
+     * @param skip    - number of movies to be skipped.
+     * @param after   - page token of the previous page, or null.
+     * @param action  - consumer of each Movie object.
+     * @param genres  - genres matching string vargs.
+     * @see #streamMovieModels(int, int, String, Consumer)
      */
-    public List<Document> getMoviesCastFaceted(int limit, int skip, String... cast) {
-        List<Document> movies = new ArrayList<>();
-        String sortKey = "tomatoes.viewer.numReviews";
-        Bson skipStage = Aggregates.skip(skip);
-        Bson matchStage = match(Filters.in("cast", cast));
-        Bson sortStage = Aggregates.sort(Sorts.descending(sortKey));
-        Bson limitStage = Aggregates.limit(limit);
-        Bson facetStage = buildFacetStage();
-        // Using a LinkedList to ensure insertion order
-        List<Bson> pipeline = new LinkedList<>();
-
-        // Faceted Search - build the aggregation pipeline by adding all stages in the
-        // correct order
-        // Your job is to order the stages correctly in the pipeline.
-        // Starting with the `matchStage` add the remaining stages.
-        pipeline.add(matchStage);
-        pipeline.add(sortStage);
-        pipeline.add(skipStage);
-        pipeline.add(limitStage);
-        pipeline.add(facetStage);
+    public void streamMovieModelsByGenre(
+            String sortKey, int limit, int skip, String after, Consumer<Movie> action,
+            String... genres) {
+        findPage(
+                movieModelCollection, Filters.in("genres", genres), sortKey, limit, skip, after,
+                MovieProjection.LIST, action);
+    }
 
-        moviesCollection.aggregate(pipeline).iterator().forEachRemaining(movies::add);
-        return movies;
+    /**
+     * Returns a page of movies sorted by the default descending sort key, decoded straight into
+     * Movie objects by {@link MovieCodec}, skipping the intermediate Document and mapping step.
+     * Pages are either selected by `skip` or continued with the `after` page token.
+     *
+     * @param limit - max number of returned movies.
+     * @param skip  - number of movies to be skipped.
+     * @param after - page token of the previous page, or null.
+     * @return list of Movie objects.
+     */
+    public List<Movie> getMovieModels(int limit, int skip, String after) {
+        return findPage(movieModelCollection, new Document(), DEFAULT_SORT_KEY, limit, skip, after);
+    }
+
+    /**
+     * Finds a page of movies that contain any of the `cast` members, decoded straight into Movie
+     * objects.
+     *
+     * @param sortKey - sort key.
+     * @param limit   - number of movies to be returned.
+     * @param skip    - number of movies to be skipped.
+     * @param after   - page token of the previous page, or null.
+     * @param cast    - cast selector.
+     * @return list of Movie objects.
+     * @see #getMovieModels(int, int, String)
+     */
+    public List<Movie> getMovieModelsByCast(
+            String sortKey, int limit, int skip, String after, String... cast) {
+        return findPage(movieModelCollection, Filters.in("cast", cast), sortKey, limit, skip, after);
+    }
+
+    /**
+     * Finds a page of movies that match the provided `genres`, decoded straight into Movie objects.
+     *
+     * @param sortKey - sort key.
+     * @param limit   - number of movies to be returned.
+     * @param skip    - number of movies to be skipped.
+     * @param after   - page token of the previous page, or null.
+     * @param genres  - genres matching string vargs.
+     * @return list of Movie objects.
+     * @see #getMovieModels(int, int, String)
+     */
+    public List<Movie> getMovieModelsByGenre(
+            String sortKey, int limit, int skip, String after, String... genres) {
+        return findPage(
+                movieModelCollection, Filters.in("genres", genres), sortKey, limit, skip, after);
+    }
+
+    /**
+     * Fetches a page of movies that contain any of the `cast` members together with the total
+     * number of matching movies, in a single aggregation:
+     *
+     * <p>db.movies.aggregate([{$match: {cast: {$in: ...}}}, {$facet: {movies: [{$sort: ...},
+     * {$skip: ...}, {$limit: ...}], count: [{$count: "count"}]}}])
+     *
+     * @param sortKey - sort key.
+     * @param limit   - number of documents to be returned.
+     * @param skip    - number of documents to be skipped.
+     * @param cast    - cast selector.
+     * @return Document with the list of movie documents under `movies` key and the total number of
+     * matching movies under `count` key.
+     */
+    public Document getMoviesByCastWithCount(String sortKey, int limit, int skip, String... cast) {
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(match(Filters.in("cast", cast)));
+        return aggregatePageWithCount(pipeline, Sorts.descending(sortKey, "_id"), limit, skip);
+    }
+
+    /**
+     * Fetches a page of movies that match the provided `genres` together with the total number of
+     * matching movies, in a single aggregation.
+     *
+     * @param sortKey - sorting key string.
+     * @param limit   - number of documents to be returned.
+     * @param skip    - number of documents to be skipped
+     * @param genres  - genres matching string vargs.
+     * @return Document with the list of movie documents under `movies` key and the total number of
+     * matching movies under `count` key.
+     * @see #getMoviesByCastWithCount(String, int, int, String...)
+     */
+    public Document getMoviesByGenreWithCount(String sortKey, int limit, int skip, String... genres) {
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(match(Filters.in("genres", genres)));
+        return aggregatePageWithCount(pipeline, Sorts.descending(sortKey, "_id"), limit, skip);
     }
 
     /**
-     * This method is the java implementation of the following mongo shell aggregation pipeline
-     * pipeline.aggregate([ ..., {$facet:{ runtime: {$bucket: ...}, rating: {$bucket: ...}, movies:
-     * {$addFields: ...}, }} ])
+     * Fetches a page of text search results together with the total number of matching movies, in
+     * a single aggregation. The text score is added to all matching documents before the $facet
+     * stage so that the results sub-pipeline can sort on it.
      *
-     * @return Bson defining the $facet stage.
+     * @param limit    - integer value of number of documents to be limited to.
+     * @param skip     - number of documents to be skipped.
+     * @param keywords - text matching keywords or terms
+     * @return Document with the list of movie documents under `movies` key and the total number of
+     * matching movies under `count` key.
+     * @see #getMoviesByCastWithCount(String, int, int, String...)
      */
-    private Bson buildFacetStage() {
+    public Document getMoviesByTextWithCount(int limit, int skip, String keywords) {
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(match(Filters.text(keywords)));
+        pipeline.add(Aggregates.addFields(new Field<>("score", new Document("$meta", "textScore"))));
+        return aggregatePageWithCount(pipeline, Sorts.descending("score", "_id"), limit, skip);
+    }
 
-        return Aggregates.facet(
-                new Facet("runtime", buildRuntimeBucketStage()),
-                new Facet("rating", buildRatingBucketStage()),
-                new Facet("movies", Aggregates.addFields(new Field("title", "$title"))));
+    @SuppressWarnings("unchecked")
+    private Document aggregatePageWithCount(List<Bson> pipeline, Bson sort, int limit, int skip) {
+        pipeline.add(
+                Aggregates.facet(
+                        new Facet(
+                                "movies",
+                                Aggregates.sort(sort),
+                                Aggregates.skip(skip),
+                                Aggregates.limit(limit),
+                                projectStage(MovieProjection.LIST, "score")),
+                        new Facet("count", Aggregates.count("count"))));
+
+        Document facetResult = moviesCollection.aggregate(pipeline).first();
+        List<Document> counts = (List<Document>) facetResult.get(FACET_COUNT);
+        long count = counts.isEmpty() ? 0 : ((Number) counts.get(0).get("count")).longValue();
+        return new Document("movies", facetResult.get("movies")).append("count", count);
+    }
+
+    /**
+     * Builds the $project stage of a projection profile, keeping also the `extraFields` computed by
+     * the previous stages, if present.
+     */
+    private static Bson projectStage(MovieProjection profile, String... extraFields) {
+        if (profile.getFields().isEmpty()) {
+            return Aggregates.addFields(new Field<>("_id", "$_id"));
+        }
+        List<String> fields = new ArrayList<>(profile.getFields());
+        fields.addAll(asList(extraFields));
+        return Aggregates.project(include(fields));
     }
 
     /**
-     * Counts the total amount of documents in the `movies` collection
+     * Default runtime dimension: {"$bucket": {"groupBy": "$runtime", "boundaries": [0, 60, 90, 120,
+     * 180], "default": "other", "output": {"count": {"$sum": 1}}}}
+     *
+     * @return FacetDefinition of the runtime dimension.
+     */
+    public static FacetDefinition runtimeFacet() {
+        return FacetDefinition.withBoundaries("runtime", "runtime", 0, 60, 90, 120, 180);
+    }
+
+    /**
+     * Default rating dimension: {"$bucket": {"groupBy": "$metacritic", "boundaries": [0, 50, 70, 90,
+     * 100], "default": "other", "output": {"count": {"$sum": 1}}}}
+     *
+     * @return FacetDefinition of the rating dimension.
+     */
+    public static FacetDefinition ratingFacet() {
+        return FacetDefinition.withBoundaries("rating", "metacritic", 0, 50, 70, 90, 100);
+    }
+
+    /**
+     * Builds the filter of a faceted search, matching movies that have any of the values of each
+     * filtered dimension: `cast`, `genres`, `countries` or `year`.
+     *
+     * @param filters - Map of dimension names to the list of accepted values.
+     * @return Bson filter.
+     * @throws IncorrectDaoOperation if a dimension cannot be filtered or a year is not a number.
+     */
+    public static Bson facetFilter(Map<String, List<String>> filters) {
+        List<Bson> conditions = new ArrayList<>();
+        for (Map.Entry<String, List<String>> filter : filters.entrySet()) {
+            switch (filter.getKey()) {
+                case "cast":
+                case "genres":
+                case "countries":
+                    conditions.add(Filters.in(filter.getKey(), filter.getValue()));
+                    break;
+                case "year":
+                    List<Integer> years = new ArrayList<>();
+                    for (String year : filter.getValue()) {
+                        try {
+                            years.add(Integer.parseInt(year));
+                        } catch (NumberFormatException e) {
+                            throw new IncorrectDaoOperation("Invalid year: " + year, e);
+                        }
+                    }
+                    conditions.add(Filters.in("year", years));
+                    break;
+                default:
+                    throw new IncorrectDaoOperation("Cannot filter movies by " + filter.getKey());
+            }
+        }
+        return conditions.isEmpty() ? new Document() : Filters.and(conditions);
+    }
+
+    /**
+     * Computes, in a single aggregation, the number of movies matching a faceted search filter and
+     * the buckets of each of the `dimensions` over all of them. The page of movies is not part of
+     * the aggregation: sorting inside $facet cannot use an index and is bound to the in-memory sort
+     * limit, so pages are fetched with the indexed {@link #getMovieCards(Map, int, int)} instead.
+     * Bucket stages may still sort all matching movies, so the aggregation can use disk.
+     *
+     * <p>db.movies.aggregate([{$match: ...}, {$facet: {count: [{$count: "count"}], dimension:
+     * [...], ...}}], {allowDiskUse: true})
+     *
+     * @param filters    - Map of dimension names to the list of accepted values.
+     * @param dimensions - facet dimensions.
+     * @return Document with the number of matching movies under `count` key and the buckets of
+     * each dimension, by name, under `facets` key.
+     */
+    @SuppressWarnings("unchecked")
+    public Document getMovieFacets(
+            Map<String, List<String>> filters, List<FacetDefinition> dimensions) {
+        List<Facet> facets = new ArrayList<>();
+        facets.add(new Facet(FACET_COUNT, Aggregates.count("count")));
+        for (FacetDefinition dimension : dimensions) {
+            facets.add(dimension.toFacet());
+        }
+
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(match(facetFilter(filters)));
+        pipeline.add(Aggregates.facet(facets));
+
+        Document facetResult = moviesCollection.aggregate(pipeline).allowDiskUse(true).first();
+        List<Document> counts = (List<Document>) facetResult.get(FACET_COUNT);
+        long count = counts.isEmpty() ? 0 : ((Number) counts.get(0).get("count")).longValue();
+        Document buckets = new Document();
+        for (FacetDefinition dimension : dimensions) {
+            buckets.append(dimension.getName(), facetResult.get(dimension.getName()));
+        }
+        return new Document("count", count).append("facets", buckets);
+    }
+
+    /**
+     * Finds a page of the movies matching a faceted search filter, decoded straight into Movie
+     * objects with the fields of the {@link MovieProjection#CARD} profile.
+     *
+     * @param filters - Map of dimension names to the list of accepted values.
+     * @param limit   - number of movies to be returned.
+     * @param skip    - number of movies to be skipped.
+     * @return list of Movie objects.
+     * @see #facetFilter(Map)
+     */
+    public List<Movie> getMovieCards(Map<String, List<String>> filters, int limit, int skip) {
+        return findPage(
+                movieModelCollection, facetFilter(filters), DEFAULT_SORT_KEY, limit, skip, null,
+                MovieProjection.CARD);
+    }
+
+    /**
+     * Counts the total amount of documents in the `movies` collection. Since no filter is applied,
+     * the count is read from the collection metadata instead of scanning the collection.
      *
      * @return number of documents in the movies collection.
      */
     public long getMoviesCount() {
-        return this.moviesCollection.countDocuments();
+        return this.moviesCollection.estimatedDocumentCount();
     }
 
     /**
@@ -346,6 +895,17 @@ public class MovieDao extends AbstractMFlixDao {
         return this.moviesCollection.countDocuments(Filters.text(keywords));
     }
 
+    /**
+     * Counts the number of documents matched by this text query, stopping at `limit` documents.
+     *
+     * @param limit    - max number of documents to count, or 0 for an exact count.
+     * @param keywords - set of keywords that match the query
+     * @return number of matching documents, up to `limit`.
+     */
+    public long getTextSearchCount(int limit, String keywords) {
+        return countDocuments(Filters.text(keywords), limit);
+    }
+
     /**
      * Counts the number of documents matched by this cast elements
      *
@@ -356,6 +916,17 @@ public class MovieDao extends AbstractMFlixDao {
         return this.moviesCollection.countDocuments(Filters.in("cast", cast));
     }
 
+    /**
+     * Counts the number of documents matched by this cast elements, stopping at `limit` documents.
+     *
+     * @param limit - max number of documents to count, or 0 for an exact count.
+     * @param cast  - cast string vargs.
+     * @return number of matching documents, up to `limit`.
+     */
+    public long getCastSearchCount(int limit, String... cast) {
+        return countDocuments(Filters.in("cast", cast), limit);
+    }
+
     /**
      * Counts the number of documents match genres filter.
      *
@@ -365,4 +936,19 @@ public class MovieDao extends AbstractMFlixDao {
     public long getGenresSearchCount(String... genres) {
         return this.moviesCollection.countDocuments(Filters.in("genres", genres));
     }
+
+    /**
+     * Counts the number of documents match genres filter, stopping at `limit` documents.
+     *
+     * @param limit  - max number of documents to count, or 0 for an exact count.
+     * @param genres - genres string vargs.
+     * @return number of matching documents, up to `limit`.
+     */
+    public long getGenresSearchCount(int limit, String... genres) {
+        return countDocuments(Filters.in("genres", genres), limit);
+    }
+
+    private long countDocuments(Bson filter, int limit) {
+        return this.moviesCollection.countDocuments(filter, new CountOptions().limit(limit));
+    }
 }
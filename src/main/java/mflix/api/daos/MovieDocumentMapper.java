@@ -4,8 +4,11 @@ import mflix.api.models.*;
 import org.bson.Document;
 
 import java.text.MessageFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -17,7 +20,9 @@ import org.slf4j.LoggerFactory;
 @SuppressWarnings("unchecked")
 public class MovieDocumentMapper {
 
-  private static SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+  // DateTimeFormatter is immutable, so it can be shared by all request threads without locking
+  private static final DateTimeFormatter DATE_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
   private static Logger log = LoggerFactory.getLogger(MovieDocumentMapper.class.getName());
 
   public static MovieTitle mapToMovieTitle(Document document) {
@@ -65,6 +70,10 @@ public class MovieDocumentMapper {
         movie.setComments(comments);
       }
 
+      if (document.containsKey("comments_count")) {
+        movie.setCommentsCount(parseInt(document.get("comments_count")));
+      }
+
     } catch (Exception e) {
       log.warn("Unable to map document `{}` to `Movie` object: {} ", document, e.getMessage());
       log.warn("Skipping document");
@@ -83,29 +92,37 @@ public class MovieDocumentMapper {
     return comment;
   }
 
-  private static Date parseDate(Object stringDate) {
+  static Date parseDate(Object stringDate) {
     if (stringDate == null) {
       return null;
     }
     try {
       if (stringDate instanceof String) {
-        return sdf.parse((String) stringDate);
+        // like SimpleDateFormat, ignore any trailing text such as fractions of seconds
+        LocalDateTime dateTime =
+            LocalDateTime.from(DATE_FORMAT.parse((String) stringDate, new ParsePosition(0)));
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
       }
       if (stringDate instanceof Date) {
         return (Date) stringDate;
       }
-    } catch (ParseException ex) {
+    } catch (DateTimeException ex) {
       log.error("Error parsing `{}` string into Date object: {}", stringDate, ex.getMessage());
     }
     return null;
   }
 
+  /** Formats a date the way not yet migrated documents store their `lastupdated` field. */
+  static String formatDate(Date date) {
+    return DATE_FORMAT.format(LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
+  }
+
   private static RottenTomatoes mapToRottenTomatoes(Document document) {
     RottenTomatoes tomatoes = new RottenTomatoes();
     if (document == null) {
       return tomatoes;
     }
-    tomatoes.setLastUpdated(parseDate(document.getString("lastupdated")));
+    tomatoes.setLastUpdated(parseDate(document.get("lastupdated")));
     if (document.containsKey("viewer")) {
       tomatoes.setViewer(mapToViewerRating((Document) document.get("viewer")));
     }
@@ -0,0 +1,70 @@
+package mflix.api.daos;
+
+import com.mongodb.client.model.Projections;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Named sets of movie fields fetched by the DAO, so that each query only transfers and decodes the
+ * fields its caller renders. Fields left out by a profile are simply missing from the returned
+ * documents, which both {@link MovieDocumentMapper} and {@link MovieCodec} map to null.
+ *
+ * <p>All profiles include `tomatoes.viewer`, which holds the default sort key needed to build page
+ * tokens.
+ */
+public enum MovieProjection {
+
+  /** Fields shown by movie listings and search results. */
+  LIST("title", "year", "poster", "genres", "imdb", "tomatoes.viewer"),
+
+  /** Listing fields plus the short summary shown by movie cards. */
+  CARD(LIST, "plot", "cast", "directors", "countries", "runtime", "rated"),
+
+  /** The whole movie document, as shown by the movie detail page. */
+  DETAIL;
+
+  private final List<String> fields;
+
+  MovieProjection(String... fields) {
+    this.fields = Collections.unmodifiableList(Arrays.asList(fields));
+  }
+
+  MovieProjection(MovieProjection base, String... fields) {
+    List<String> all = new ArrayList<>(base.fields);
+    all.addAll(Arrays.asList(fields));
+    this.fields = Collections.unmodifiableList(all);
+  }
+
+  /**
+   * Returns the projected fields, besides `_id`. An empty list means all fields.
+   *
+   * @return list of field paths.
+   */
+  public List<String> getFields() {
+    return fields;
+  }
+
+  /**
+   * Builds the projection of this profile.
+   *
+   * @return Bson projection, or null if the profile includes all fields.
+   */
+  public Bson projection() {
+    return fields.isEmpty() ? null : Projections.include(fields);
+  }
+
+  /**
+   * Builds the projection of this profile together with the text search score.
+   *
+   * @param scoreField - name of the field holding the text score.
+   * @return Bson projection.
+   */
+  public Bson projectionWithTextScore(String scoreField) {
+    Bson score = Projections.metaTextScore(scoreField);
+    return fields.isEmpty() ? score : Projections.fields(Projections.include(fields), score);
+  }
+}
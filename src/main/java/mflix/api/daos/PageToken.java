@@ -0,0 +1,172 @@
+package mflix.api.daos;
+
+import com.mongodb.client.model.Filters;
+import mflix.api.models.Movie;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Opaque continuation token used for keyset (seek) pagination. It holds the sort key value and
+ * `_id` of the last document of a page, so that the next page can be fetched with an indexed range
+ * filter instead of a cursor skip, making every page cost the same regardless of depth.
+ *
+ * <p>Pages are expected to be sorted descending by the sort key, with `_id` descending as tie
+ * breaker.
+ */
+public final class PageToken {
+
+  private static final String VALUE_KEY = "v";
+  private static final String ID_KEY = "i";
+
+  private final Object sortValue;
+
+  private final ObjectId id;
+
+  public PageToken(Object sortValue, ObjectId id) {
+    this.sortValue = sortValue;
+    this.id = id;
+  }
+
+  public Object getSortValue() {
+    return sortValue;
+  }
+
+  public ObjectId getId() {
+    return id;
+  }
+
+  /**
+   * Builds the token pointing after the given document.
+   *
+   * @param document - last document of the current page.
+   * @param sortKey - dotted path of the sort key field.
+   * @return PageToken for the document.
+   */
+  public static PageToken fromDocument(Document document, String sortKey) {
+    return new PageToken(getPath(document, sortKey), document.getObjectId("_id"));
+  }
+
+  /**
+   * Returns the encoded token of the page that follows `page`, or null if `page` is the last one.
+   *
+   * @param page - list of documents of the current page.
+   * @param limit - requested page size.
+   * @param sortKey - dotted path of the sort key field.
+   * @return encoded token string or null.
+   */
+  public static String next(List<Document> page, int limit, String sortKey) {
+    if (page.isEmpty() || page.size() < limit) {
+      return null;
+    }
+    return fromDocument(page.get(page.size() - 1), sortKey).encode();
+  }
+
+  /**
+   * Returns the encoded token of the page of Movie objects that follows `page`, sorted by the
+   * default `tomatoes.viewer.numReviews` sort key, or null if `page` is the last one.
+   *
+   * @param page - list of movies of the current page.
+   * @param limit - requested page size.
+   * @return encoded token string or null.
+   */
+  public static String nextMovies(List<Movie> page, int limit) {
+    if (page.isEmpty() || page.size() < limit) {
+      return null;
+    }
+    return fromMovie(page.get(page.size() - 1)).encode();
+  }
+
+  /**
+   * Builds the token pointing after the given movie, sorted by the default
+   * `tomatoes.viewer.numReviews` sort key.
+   *
+   * @param movie - last movie of the current page.
+   * @return PageToken for the movie.
+   */
+  public static PageToken fromMovie(Movie movie) {
+    Integer numReviews = null;
+    if (movie.getTomatoes() != null && movie.getTomatoes().getViewer() != null) {
+      numReviews = movie.getTomatoes().getViewer().getNumReviews();
+    }
+    return new PageToken(numReviews, new ObjectId(movie.getId()));
+  }
+
+  /**
+   * Decodes a token previously produced by {@link #encode()}.
+   *
+   * @param token - url safe token string.
+   * @return PageToken object.
+   * @throws IncorrectDaoOperation if the token cannot be decoded, or its sort value is not null, a
+   *     number, a string or a date, since it ends up in the seek filter.
+   */
+  public static PageToken decode(String token) {
+    try {
+      String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      Document document = Document.parse(json);
+      ObjectId id = document.getObjectId(ID_KEY);
+      if (id == null) {
+        throw new IncorrectDaoOperation("Page token has no `_id` reference");
+      }
+      Object sortValue = document.get(VALUE_KEY);
+      if (sortValue != null
+          && !(sortValue instanceof Number)
+          && !(sortValue instanceof String)
+          && !(sortValue instanceof Date)) {
+        throw new IncorrectDaoOperation("Page token has an invalid sort value");
+      }
+      return new PageToken(sortValue, id);
+    } catch (IncorrectDaoOperation e) {
+      throw e;
+    } catch (RuntimeException e) {
+      // the token comes from the client and is echoed back, do not include it
+      throw new IncorrectDaoOperation("Invalid page token", e);
+    }
+  }
+
+  /**
+   * Encodes this token as an url safe string.
+   *
+   * @return token string.
+   */
+  public String encode() {
+    Document document = new Document(VALUE_KEY, sortValue).append(ID_KEY, id);
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(document.toJson().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Builds the range filter that matches all documents that follow this token, for a descending
+   * sort on `sortField` plus `_id`. Documents missing the sort field sort last, so they follow any
+   * non null value.
+   *
+   * @param sortField - field name the results are sorted by.
+   * @return Bson filter.
+   */
+  public Bson seekFilter(String sortField) {
+    if (sortValue == null) {
+      return Filters.and(Filters.eq(sortField, null), Filters.lt("_id", id));
+    }
+    return Filters.or(
+        Filters.lt(sortField, sortValue),
+        Filters.and(Filters.eq(sortField, sortValue), Filters.lt("_id", id)),
+        Filters.eq(sortField, null));
+  }
+
+  private static Object getPath(Document document, String path) {
+    Object value = document;
+    for (String key : path.split("\\.")) {
+      if (!(value instanceof Document)) {
+        return null;
+      }
+      value = ((Document) value).get(key);
+    }
+    return value;
+  }
+}
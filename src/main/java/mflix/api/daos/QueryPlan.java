@@ -0,0 +1,128 @@
+package mflix.api.daos;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary of the winning plan and execution statistics of an explain command result, as returned
+ * with `executionStats` verbosity.
+ */
+public class QueryPlan {
+
+  private final List<String> stages = new ArrayList<>();
+
+  private final List<String> indexNames = new ArrayList<>();
+
+  private final long docsExamined;
+
+  private final long keysExamined;
+
+  private final long returned;
+
+  public QueryPlan(Document explain) {
+    Document queryPlanner = (Document) explain.get("queryPlanner");
+    if (queryPlanner != null) {
+      collectStages((Document) queryPlanner.get("winningPlan"));
+    }
+    Document executionStats = (Document) explain.get("executionStats");
+    if (executionStats == null) {
+      executionStats = new Document();
+    }
+    this.docsExamined = longValue(executionStats.get("totalDocsExamined"));
+    this.keysExamined = longValue(executionStats.get("totalKeysExamined"));
+    this.returned = longValue(executionStats.get("nReturned"));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void collectStages(Document stage) {
+    if (stage == null) {
+      return;
+    }
+    stages.add(stage.getString("stage"));
+    if (stage.containsKey("indexName")) {
+      indexNames.add(stage.getString("indexName"));
+    }
+    collectStages((Document) stage.get("inputStage"));
+    if (stage.containsKey("inputStages")) {
+      for (Document inputStage : (List<Document>) stage.get("inputStages")) {
+        collectStages(inputStage);
+      }
+    }
+  }
+
+  private static long longValue(Object value) {
+    return value instanceof Number ? ((Number) value).longValue() : 0;
+  }
+
+  /** Names of the winning plan stages, from the root stage to the leaf stages. */
+  public List<String> getStages() {
+    return stages;
+  }
+
+  /** Names of the indexes used by the winning plan. */
+  public List<String> getIndexNames() {
+    return indexNames;
+  }
+
+  public long getDocsExamined() {
+    return docsExamined;
+  }
+
+  public long getKeysExamined() {
+    return keysExamined;
+  }
+
+  public long getReturned() {
+    return returned;
+  }
+
+  /**
+   * Checks if the winning plan reads the collection without an index.
+   *
+   * @return true if the plan has a COLLSCAN stage.
+   */
+  public boolean isCollectionScan() {
+    return stages.contains("COLLSCAN");
+  }
+
+  /**
+   * Checks if the query is answered from the index alone, without fetching documents.
+   *
+   * @return true if the plan uses an index and never fetches documents.
+   */
+  public boolean isCovered() {
+    return !indexNames.isEmpty() && !stages.contains("FETCH") && docsExamined == 0;
+  }
+
+  /**
+   * Ratio of examined documents to returned documents. Selective indexed queries are close to 1.
+   *
+   * @return docs examined per returned document, or the number of docs examined if nothing was
+   *     returned.
+   */
+  public double getDocsExaminedRatio() {
+    return returned == 0 ? docsExamined : (double) docsExamined / returned;
+  }
+
+  /**
+   * Builds a map representation of this plan summary.
+   *
+   * @return Map of plan summary values.
+   */
+  public Map<String, Object> toMap() {
+    Map<String, Object> plan = new HashMap<>();
+    plan.put("stages", stages);
+    plan.put("indexes", indexNames);
+    plan.put("docs_examined", docsExamined);
+    plan.put("keys_examined", keysExamined);
+    plan.put("returned", returned);
+    plan.put("docs_examined_ratio", getDocsExaminedRatio());
+    plan.put("covered", isCovered());
+    plan.put("collection_scan", isCollectionScan());
+    return plan;
+  }
+}
@@ -1,16 +1,21 @@
 package mflix.api.daos;
 
 import com.mongodb.BasicDBObject;
+import com.mongodb.ErrorCategory;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.MongoWriteException;
 import com.mongodb.WriteConcern;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
+import mflix.api.cache.LruCache;
 import mflix.api.models.Session;
 import mflix.api.models.User;
 import org.bson.BsonString;
@@ -18,6 +23,7 @@ import org.bson.Document;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.codecs.pojo.PojoCodecProvider;
 import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +31,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
@@ -35,17 +45,47 @@ import static com.mongodb.client.model.Updates.*;
 @Configuration
 public class UserDao extends AbstractMFlixDao {
 
+    private static final long DEFAULT_CACHE_MAX_ENTRIES = 10000;
+
+    private static final long DEFAULT_CACHE_TTL_MS = 60000;
+
     private final MongoCollection<User> usersCollection;
     //TODO> Ticket: User Management - do the necessary changes so that the sessions collection
     //returns a Session object
     private final MongoCollection<Session> sessionsCollection;
 
+    /** Users by email, read through by {@link #getUser(String)}. */
+    private final LruCache<String, User> users;
+
+    /** Emails of the cached users by user `_id`, which is all that change events carry. */
+    private final LruCache<ObjectId, String> userEmails;
+
     private final Logger log;
 
+    public UserDao(MongoClient mongoClient, String databaseName) {
+        this(mongoClient, databaseName, DEFAULT_CACHE_MAX_ENTRIES, DEFAULT_CACHE_TTL_MS);
+    }
+
+    /**
+     * Creates the users DAO. Users are cached by email for `cacheTtlMillis`, so that the login flow
+     * does not query them on every call. Writes through this DAO invalidate the cached entries,
+     * writes by other application instances are seen at most `cacheTtlMillis` later, or as soon as
+     * their change events invalidate the entries, see {@link #invalidateUser(ObjectId)}.
+     *
+     * @param mongoClient     - MongoClient object.
+     * @param databaseName    - database name.
+     * @param cacheMaxEntries - max number of cached users.
+     * @param cacheTtlMillis  - time to live of cached users.
+     */
     @Autowired
     public UserDao(
-            MongoClient mongoClient, @Value("${spring.mongodb.database}") String databaseName) {
+            MongoClient mongoClient,
+            @Value("${spring.mongodb.database}") String databaseName,
+            @Value("${api.users.cache.max_entries:10000}") long cacheMaxEntries,
+            @Value("${api.users.cache.ttl_ms:60000}") long cacheTtlMillis) {
         super(mongoClient, databaseName);
+        users = new LruCache<>("users", cacheMaxEntries, cacheTtlMillis);
+        userEmails = new LruCache<>("user_emails", cacheMaxEntries, cacheTtlMillis);
         CodecRegistry pojoCodecRegistry =
                 fromRegistries(
                         MongoClientSettings.getDefaultCodecRegistry(),
@@ -58,6 +98,46 @@ public class UserDao extends AbstractMFlixDao {
         sessionsCollection = db.getCollection("sessions", Session.class).withCodecRegistry(pojoCodecRegistry);
     }
 
+    /**
+     * Declares the indexes used by the users and sessions queries: users are unique by email and
+     * sessions are unique by user id, which makes concurrent logins of a user share one session.
+     *
+     * @return Map with the lists of `users` and `sessions` collection indexes.
+     */
+    @Override
+    public Map<String, List<IndexModel>> getIndexModels() {
+        Map<String, List<IndexModel>> indexes = new HashMap<>();
+        indexes.put(
+                "users",
+                Collections.singletonList(
+                        backgroundIndex(Indexes.ascending("email"), new IndexOptions().unique(true))));
+        indexes.put(
+                "sessions",
+                Collections.singletonList(
+                        backgroundIndex(Indexes.ascending("user_id"), new IndexOptions().unique(true))));
+        return indexes;
+    }
+
+    /**
+     * Explains the user by email and session by user id queries.
+     *
+     * @return Map of query names to their plan summary.
+     */
+    @Override
+    public Map<String, QueryPlan> explainQueries() {
+        Map<String, QueryPlan> plans = new LinkedHashMap<>();
+        plans.put(
+                "users.by_email",
+                new QueryPlan(explainFind(
+                        "users", Filters.eq("email", "explain@mflix.test"), null, null, null, 1)));
+        plans.put(
+                "sessions.by_user_id",
+                new QueryPlan(explainFind(
+                        "sessions", Filters.eq("user_id", "explain@mflix.test"), null, null, null,
+                        1)));
+        return plans;
+    }
+
     /**
      * Inserts the `user` object in the `users` collection.
      *
@@ -69,6 +149,7 @@ public class UserDao extends AbstractMFlixDao {
 
         MongoCollection<User> userMongoCollection = usersCollection.withWriteConcern(WriteConcern.W1);
         userMongoCollection.insertOne(user);
+        users.invalidate(user.getEmail());
         return true;
         //TODO > Ticket: Handling Errors - make sure to only add new users
         // and not users that already exist.
@@ -76,7 +157,11 @@ public class UserDao extends AbstractMFlixDao {
     }
 
     /**
-     * Creates session using userId and jwt token.
+     * Creates session using userId and jwt token, or replaces the jwt of the existing session of
+     * the user. The session is upserted in one round trip, and the unique index on
+     * `sessions.user_id` guarantees that concurrent logins of a user never create two sessions.
+     * The user is read from the database rather than the users cache, so a deleted user cannot
+     * get a session.
      *
      * @param userId - user string identifier
      * @param jwt    - jwt string token
@@ -90,36 +175,54 @@ public class UserDao extends AbstractMFlixDao {
             return false;
         }
 
-        if (getUser(userId) == null) {
+        // read past the cache, which may still hold a deleted user for up to its TTL
+        if (findUser(userId) == null) {
             return false;
         }
 
-        final Bson filter = Filters.eq("user_id", userId);
-        final Session oldSession = sessionsCollection.find(filter).limit(1).first();
-        if (oldSession == null) {
-            final Session session = new Session();
-            session.setUserId(userId);
-            session.setJwt(jwt);
-            sessionsCollection.insertOne(session);
+        // a single round trip, whether the user already has a session or not
+        UpdateResult result;
+        try {
+            result = upsertSession(userId, jwt);
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+            // a concurrent login inserted the session first, which the retry updates
+            result = upsertSession(userId, jwt);
         }
-        return true;
+        return result.wasAcknowledged();
 
         //TODO > Ticket: Handling Errors - implement a safeguard against
         // creating a session with the same jwt token.
     }
 
+    private UpdateResult upsertSession(String userId, String jwt) {
+        return sessionsCollection.updateOne(
+                Filters.eq("user_id", userId), set("jwt", jwt), new UpdateOptions().upsert(true));
+    }
+
     /**
-     * Returns the User object matching the an email string value.
+     * Returns the User object matching the an email string value. Users are cached by email, and
+     * each call returns its own copy of the cached user, which callers are free to modify.
      *
      * @param email - email string to be matched.
      * @return User object or null.
      */
     public User getUser(String email) {
+        User user = users.get(email, this::findUser);
+        return user == null ? null : new User(user);
+    }
+
+    private User findUser(String email) {
         User user = null;
         //Ticket: User Management - implement the query that returns the first User object.
         Document queryFilter = new Document("email", email);
         try {
             user = usersCollection.find(queryFilter).limit(1).iterator().next();
+            if (user.getOid() != null) {
+                userEmails.put(user.getOid(), email);
+            }
             return user;
         } catch (NoSuchElementException noElEx) {
             return null;
@@ -167,6 +270,7 @@ public class UserDao extends AbstractMFlixDao {
 
         Bson query = Filters.eq("email", email);
         DeleteResult dResult = usersCollection.deleteOne(query);
+        users.invalidate(email);
         return dResult.wasAcknowledged();
     }
 
@@ -184,10 +288,42 @@ public class UserDao extends AbstractMFlixDao {
         Bson filter = Filters.eq("email", email);
 
         UpdateResult preferences = usersCollection.updateOne(filter, set("preferences", userPreferences));
+        users.invalidate(email);
         if(preferences.wasAcknowledged())
             return true;
         //TODO > Ticket: Handling Errors - make this method more robust by
         // handling potential exceptions when updating an entry.
         return false;
     }
+
+    /**
+     * Removes the cached user of a changed `users` document, e.g. when another application instance
+     * changed the user. Nothing is removed if the user is not cached.
+     *
+     * @param id - `_id` of the changed user document.
+     */
+    public void invalidateUser(ObjectId id) {
+        String email = userEmails.get(id);
+        if (email != null) {
+            users.invalidate(email);
+            userEmails.invalidate(id);
+        }
+    }
+
+    /** Removes all cached users, e.g. when the changes of other instances may have been missed. */
+    public void invalidateUsers() {
+        users.invalidateAll();
+        userEmails.invalidateAll();
+    }
+
+    /**
+     * Collects the users cache counters.
+     *
+     * @return Map of cache statistics, by cache name.
+     */
+    public Map<String, ?> getCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("users", users.stats());
+        return stats;
+    }
 }
@@ -0,0 +1,60 @@
+package mflix.api.events;
+
+import org.bson.BsonValue;
+
+/**
+ * A write observed on a watched collection: the collection name, the change stream operation type,
+ * e.g. `insert`, `update`, `replace` or `delete`, and the `_id` of the changed document.
+ *
+ * <p>A {@link #RESET} event has no document key. It is published when changes may have been missed,
+ * e.g. when the change stream cannot be resumed, and subscribers should drop everything they hold
+ * for the collection.
+ */
+public class ChangeEvent {
+
+  public static final String RESET = "reset";
+
+  private final String collection;
+
+  private final String operationType;
+
+  private final BsonValue documentKey;
+
+  public ChangeEvent(String collection, String operationType, BsonValue documentKey) {
+    this.collection = collection;
+    this.operationType = operationType;
+    this.documentKey = documentKey;
+  }
+
+  /**
+   * Builds the event signaling that the changes of a collection may have been missed.
+   *
+   * @param collection - collection name.
+   * @return ChangeEvent object.
+   */
+  public static ChangeEvent reset(String collection) {
+    return new ChangeEvent(collection, RESET, null);
+  }
+
+  public String getCollection() {
+    return collection;
+  }
+
+  public String getOperationType() {
+    return operationType;
+  }
+
+  /** The `_id` of the changed document, or null for {@link #RESET} events. */
+  public BsonValue getDocumentKey() {
+    return documentKey;
+  }
+
+  public boolean isReset() {
+    return RESET.equals(operationType);
+  }
+
+  @Override
+  public String toString() {
+    return collection + " " + operationType + (documentKey == null ? "" : " " + documentKey);
+  }
+}
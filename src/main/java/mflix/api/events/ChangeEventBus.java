@@ -0,0 +1,80 @@
+package mflix.api.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Delivers the writes observed by {@link ChangeStreamWatcher} to the caches and materialized views
+ * that subscribe to a collection. Events are delivered on the watcher thread, in the order of the
+ * change stream, so subscribers should only do cheap work like invalidating cache entries. A
+ * subscriber that throws does not prevent the delivery to the others.
+ */
+@Component
+public class ChangeEventBus {
+
+  private final Map<String, List<Consumer<ChangeEvent>>> subscribers = new ConcurrentHashMap<>();
+
+  private final AtomicLong published = new AtomicLong();
+
+  private final AtomicLong failures = new AtomicLong();
+
+  private final Logger log;
+
+  public ChangeEventBus() {
+    super();
+    this.log = LoggerFactory.getLogger(this.getClass());
+  }
+
+  /**
+   * Subscribes to the changes of a collection.
+   *
+   * @param collection - watched collection name.
+   * @param subscriber - called with each change of the collection.
+   */
+  public void subscribe(String collection, Consumer<ChangeEvent> subscriber) {
+    subscribers.computeIfAbsent(collection, key -> new CopyOnWriteArrayList<>()).add(subscriber);
+  }
+
+  /**
+   * Delivers an event to the subscribers of its collection.
+   *
+   * @param event - change event.
+   */
+  public void publish(ChangeEvent event) {
+    published.incrementAndGet();
+    for (Consumer<ChangeEvent> subscriber :
+        subscribers.getOrDefault(event.getCollection(), new CopyOnWriteArrayList<>())) {
+      try {
+        subscriber.accept(event);
+      } catch (RuntimeException e) {
+        failures.incrementAndGet();
+        log.warn("Subscriber failed to handle change event `{}`: {}", event, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Collects the event bus counters.
+   *
+   * @return Map with the number of `published` events, subscriber `failures` and `subscribers`
+   *     per collection.
+   */
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new HashMap<>();
+    Map<String, Integer> counts = new HashMap<>();
+    subscribers.forEach((collection, list) -> counts.put(collection, list.size()));
+    stats.put("published", published.get());
+    stats.put("failures", failures.get());
+    stats.put("subscribers", counts);
+    return stats;
+  }
+}
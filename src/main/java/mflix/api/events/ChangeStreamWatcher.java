@@ -0,0 +1,351 @@
+package mflix.api.events;
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches the writes to the application collections with a database change stream and publishes
+ * them on the {@link ChangeEventBus}, so that caches see the writes of every application instance,
+ * not only their own.
+ *
+ * <p>The resume token of the last handled change is saved in the `change_stream_tokens`
+ * collection, under the `api.changes.consumer` name, at most every `api.changes.token_save_ms`.
+ * Each application instance needs its own consumer name, so the name defaults to the host name
+ * and `server.port` of the instance. On
+ * restart the stream resumes after that token, so the changes written while the application was
+ * down are still delivered. If the stream cannot be resumed, e.g. the token fell off the oplog, a
+ * {@link ChangeEvent#RESET} event is published for each watched collection and the stream starts
+ * over from the current time. Transient errors reopen the stream from the last token.
+ *
+ * <p>Change streams need a replica set or a sharded cluster: on a standalone server the watcher
+ * logs the error once and stops, and the caches only rely on their own invalidation and TTL. The
+ * token documents of the instances that are gone are removed by a TTL index on their `updated`
+ * date after `api.changes.token_ttl_days`. A running instance refreshes that date every day, even
+ * when no change is written.
+ */
+@Component
+public class ChangeStreamWatcher {
+
+  public static String TOKENS_COLLECTION = "change_stream_tokens";
+
+  /** ChangeStreamHistoryLost, ChangeStreamFatalError and InvalidResumeToken server error codes. */
+  private static final List<Integer> NON_RESUMABLE_ERRORS = Arrays.asList(286, 280, 260);
+
+  /**
+   * Server error codes of a deployment without change streams: $changeStream on a standalone
+   * server, unknown $changeStream stage and CommandNotSupported.
+   */
+  private static final List<Integer> UNSUPPORTED_ERRORS = Arrays.asList(40573, 40324, 115);
+
+  private static final long TOKEN_REFRESH_MS = TimeUnit.DAYS.toMillis(1);
+
+  private static final long MAX_AWAIT_MS = 1000;
+
+  private static final long RETRY_MS = 5000;
+
+  private final MongoDatabase db;
+
+  private final MongoCollection<Document> tokensCollection;
+
+  private final ChangeEventBus eventBus;
+
+  @Value("${api.changes.enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${api.changes.collections:movies,comments,users}")
+  private String[] collections = {"movies", "comments", "users"};
+
+  @Value("${api.changes.consumer:}")
+  private String consumer = "";
+
+  @Value("${server.port:8080}")
+  private int port = 8080;
+
+  @Value("${api.changes.token_save_ms:1000}")
+  private long tokenSaveMillis = 1000;
+
+  @Value("${api.changes.token_ttl_days:30}")
+  private long tokenTtlDays = 30;
+
+  private volatile boolean running;
+
+  private Thread thread;
+
+  private BsonDocument resumeToken;
+
+  private long tokenSavedAt;
+
+  private boolean tokenChanged;
+
+  private final AtomicLong events = new AtomicLong();
+
+  private final AtomicLong resets = new AtomicLong();
+
+  private final AtomicLong errors = new AtomicLong();
+
+  private volatile long lastEventAt;
+
+  private final Logger log;
+
+  @Autowired
+  public ChangeStreamWatcher(
+      MongoClient mongoClient,
+      @Value("${spring.mongodb.database}") String databaseName,
+      ChangeEventBus eventBus) {
+    this.db = mongoClient.getDatabase(databaseName);
+    this.tokensCollection = db.getCollection(TOKENS_COLLECTION);
+    this.eventBus = eventBus;
+    this.log = LoggerFactory.getLogger(this.getClass());
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (enabled) {
+      start();
+    }
+  }
+
+  /** Starts watching in a background daemon thread, resuming after the saved token if any. */
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    if (consumer == null || consumer.isEmpty()) {
+      consumer = instanceName();
+    }
+    createTokensIndex();
+    BsonDocument saved =
+        tokensCollection
+            .withDocumentClass(BsonDocument.class)
+            .find(Filters.eq("_id", consumer))
+            .first();
+    resumeToken =
+        saved == null || !saved.isDocument("token") ? null : saved.getDocument("token");
+    tokenSavedAt =
+        saved == null || !saved.isDateTime("updated") ? 0 : saved.getDateTime("updated").getValue();
+    running = true;
+    thread = new Thread(this::watch, "change-stream-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Sets the name the resume token is saved under. Must be called before {@link #start()}.
+   *
+   * @param consumer - consumer name, or null for the default instance name.
+   */
+  public void setConsumer(String consumer) {
+    this.consumer = consumer;
+  }
+
+  /** Expires the tokens of the consumers that stopped saving them. */
+  private void createTokensIndex() {
+    try {
+      tokensCollection.createIndex(
+          Indexes.ascending("updated"),
+          new IndexOptions().expireAfter(tokenTtlDays, TimeUnit.DAYS).background(true));
+    } catch (MongoException e) {
+      log.warn("Cannot create the change stream tokens TTL index: {}", e.getMessage());
+    }
+  }
+
+  private String instanceName() {
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      log.warn("Cannot resolve the host name, using `localhost`: {}", e.getMessage());
+      host = "localhost";
+    }
+    return host + ":" + port;
+  }
+
+  /** Stops watching and saves the last resume token. */
+  @PreDestroy
+  public synchronized void stop() {
+    running = false;
+    if (thread == null) {
+      return;
+    }
+    try {
+      thread.join(MAX_AWAIT_MS * 5);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    thread = null;
+  }
+
+  private void watch() {
+    while (running) {
+      try (MongoCursor<ChangeStreamDocument<Document>> cursor = open()) {
+        while (running) {
+          ChangeStreamDocument<Document> change = cursor.tryNext();
+          if (change != null) {
+            resumeToken = change.getResumeToken();
+            tokenChanged = true;
+            if (!handle(change)) {
+              break;
+            }
+          }
+          saveToken(false);
+        }
+      } catch (MongoServerException e) {
+        if (UNSUPPORTED_ERRORS.contains(e.getCode())) {
+          errors.incrementAndGet();
+          log.warn("Change streams are not supported, stop watching: {}", e.getMessage());
+          running = false;
+          return;
+        }
+        if (NON_RESUMABLE_ERRORS.contains(e.getCode())) {
+          log.warn("Cannot resume the change stream, caches are reset: {}", e.getMessage());
+          reset();
+        } else {
+          retry(e);
+        }
+      } catch (MongoException e) {
+        retry(e);
+      }
+    }
+    saveToken(true);
+  }
+
+  private MongoCursor<ChangeStreamDocument<Document>> open() {
+    Bson match =
+        Aggregates.match(
+            Filters.or(
+                Filters.in("ns.coll", Arrays.asList(collections)),
+                Filters.in(
+                    "operationType",
+                    OperationType.INVALIDATE.getValue(),
+                    OperationType.DROP_DATABASE.getValue())));
+    // only the document key is needed, do not transfer inserted and replaced documents
+    Bson project = Aggregates.project(Projections.exclude("fullDocument", "updateDescription"));
+    return (resumeToken == null
+            ? db.watch(Arrays.asList(match, project))
+            : db.watch(Arrays.asList(match, project)).resumeAfter(resumeToken))
+        .maxAwaitTime(MAX_AWAIT_MS, TimeUnit.MILLISECONDS)
+        .iterator();
+  }
+
+  /**
+   * Publishes the event of a change.
+   *
+   * @return false if the change invalidated the stream, which must be reopened.
+   */
+  private boolean handle(ChangeStreamDocument<Document> change) {
+    events.incrementAndGet();
+    lastEventAt = System.currentTimeMillis();
+    OperationType operationType = change.getOperationType();
+    switch (operationType) {
+      case INVALIDATE:
+      case DROP_DATABASE:
+        reset();
+        return false;
+      case DROP:
+      case RENAME:
+        resets.incrementAndGet();
+        eventBus.publish(ChangeEvent.reset(change.getNamespace().getCollectionName()));
+        return true;
+      default:
+        BsonDocument key = change.getDocumentKey();
+        eventBus.publish(
+            new ChangeEvent(
+                change.getNamespace().getCollectionName(),
+                operationType.getValue(),
+                key == null ? null : key.get("_id")));
+        return true;
+    }
+  }
+
+  /** Starts over from the current time, telling subscribers that changes may have been missed. */
+  private void reset() {
+    resumeToken = null;
+    tokenChanged = true;
+    saveToken(true);
+    resets.incrementAndGet();
+    for (String collection : collections) {
+      eventBus.publish(ChangeEvent.reset(collection));
+    }
+  }
+
+  private void retry(MongoException e) {
+    errors.incrementAndGet();
+    log.warn("Change stream failed, retrying in {} ms: {}", RETRY_MS, e.getMessage());
+    try {
+      Thread.sleep(RETRY_MS);
+    } catch (InterruptedException interrupted) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  private void saveToken(boolean force) {
+    long now = System.currentTimeMillis();
+    // the token is saved again once a day, so its TTL does not expire while the instance runs
+    boolean refresh = tokenSavedAt > 0 && now - tokenSavedAt >= TOKEN_REFRESH_MS;
+    if (!refresh && (!tokenChanged || (!force && now - tokenSavedAt < tokenSaveMillis))) {
+      return;
+    }
+    try {
+      tokensCollection.replaceOne(
+          Filters.eq("_id", consumer),
+          new Document("_id", consumer).append("token", resumeToken).append("updated", new Date()),
+          new ReplaceOptions().upsert(true));
+      tokenSavedAt = now;
+      tokenChanged = false;
+    } catch (MongoException e) {
+      log.warn("Cannot save the change stream resume token: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Collects the watcher counters.
+   *
+   * @return Map with the `running` state, the number of handled `events`, `resets` and stream
+   *     `errors`, the time of the last event in `last_event_ms` and the event bus counters under
+   *     `bus` key.
+   */
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("bus", eventBus.stats());
+    stats.put("running", running);
+    stats.put("events", events.get());
+    stats.put("resets", resets.get());
+    stats.put("errors", errors.get());
+    stats.put("last_event_ms", lastEventAt);
+    return stats;
+  }
+}
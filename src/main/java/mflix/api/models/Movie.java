@@ -1,5 +1,8 @@
 package mflix.api.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.Date;
 import java.util.List;
 
@@ -23,6 +26,11 @@ public class Movie extends AbstractMovie {
 
   private List<Comment> comments;
 
+  /** Total number of comments, only loaded by the movie detail. */
+  @JsonProperty("comments_count")
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Integer commentsCount;
+
   public Movie() {
     super();
   }
@@ -138,4 +146,12 @@ public class Movie extends AbstractMovie {
   public void setComments(List<Comment> comments) {
     this.comments = comments;
   }
+
+  public Integer getCommentsCount() {
+    return commentsCount;
+  }
+
+  public void setCommentsCount(Integer commentsCount) {
+    this.commentsCount = commentsCount;
+  }
 }
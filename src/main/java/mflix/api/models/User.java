@@ -1,11 +1,16 @@
 package mflix.api.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.bson.codecs.pojo.annotations.BsonId;
+import org.bson.types.ObjectId;
 
+import java.util.HashMap;
 import java.util.Map;
 
 public class User {
 
+  @BsonId @JsonIgnore private ObjectId oid;
+
   private String name;
   private String email;
   @JsonIgnore private String hashedpw;
@@ -18,6 +23,28 @@ public class User {
     super();
   }
 
+  /**
+   * Copies a user, including its preferences, so that cached users are not shared with callers.
+   *
+   * @param other - user to be copied.
+   */
+  public User(User other) {
+    this.oid = other.oid;
+    this.name = other.name;
+    this.email = other.email;
+    this.hashedpw = other.hashedpw;
+    this.isAdmin = other.isAdmin;
+    this.preferences = other.preferences == null ? null : new HashMap<>(other.preferences);
+  }
+
+  public ObjectId getOid() {
+    return oid;
+  }
+
+  public void setOid(ObjectId oid) {
+    this.oid = oid;
+  }
+
   public String getName() {
     return name;
   }
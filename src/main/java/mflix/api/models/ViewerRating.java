@@ -3,7 +3,7 @@ package mflix.api.models;
 public class ViewerRating {
 
   private double rating;
-  private int numReviews;
+  private Integer numReviews;
 
   public ViewerRating() {
     super();
@@ -17,11 +17,11 @@ public class ViewerRating {
     this.rating = rating;
   }
 
-  public int getNumReviews() {
+  public Integer getNumReviews() {
     return numReviews;
   }
 
-  public void setNumReviews(int numReviews) {
+  public void setNumReviews(Integer numReviews) {
     this.numReviews = numReviews;
   }
 }
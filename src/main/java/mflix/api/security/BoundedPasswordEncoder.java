@@ -0,0 +1,108 @@
+package mflix.api.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the hashing of a delegate encoder, e.g. BCrypt, on a dedicated pool of `threads` threads,
+ * so that registration and login spikes cannot take all request threads for CPU bound hashing.
+ * At most `queueCapacity` hashes wait for a thread; beyond that, requests are rejected with
+ * {@link PasswordHashingRejectedException} instead of queueing without bound. The calling thread
+ * waits for its hash to complete.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+  private final PasswordEncoder delegate;
+
+  private final ThreadPoolExecutor executor;
+
+  private final AtomicLong rejected = new AtomicLong();
+
+  /**
+   * Creates the encoder and its hashing pool.
+   *
+   * @param delegate - encoder doing the hashing.
+   * @param threads - number of hashing threads.
+   * @param queueCapacity - max number of hashes waiting for a thread.
+   */
+  public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity) {
+    this.delegate = delegate;
+    AtomicInteger count = new AtomicInteger();
+    ThreadFactory threadFactory =
+        runnable -> {
+          Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            threadFactory);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return run(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  private <T> T run(Callable<T> task) {
+    try {
+      return executor.submit(task).get();
+    } catch (RejectedExecutionException e) {
+      rejected.incrementAndGet();
+      throw new PasswordHashingRejectedException(
+          "Too many concurrent password checks, retry later");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing password", e);
+    }
+  }
+
+  /** Stops the hashing threads. */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * Collects the hashing pool counters.
+   *
+   * @return Map with the number of `threads`, `active` threads, `queued` hashes, the
+   *     `queue_capacity`, and the number of `completed` and `rejected` hashes.
+   */
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("threads", executor.getMaximumPoolSize());
+    stats.put("active", executor.getActiveCount());
+    stats.put("queued", executor.getQueue().size());
+    stats.put(
+        "queue_capacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+    stats.put("completed", executor.getCompletedTaskCount());
+    stats.put("rejected", rejected.get());
+    return stats;
+  }
+}
@@ -3,6 +3,7 @@ package mflix.api.security;
 import mflix.api.services.TokenAuthenticationService;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.servlet.FilterChain;
@@ -11,10 +12,21 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
+/**
+ * Sets the authenticated user of requests carrying a valid JWT. Requests matched by the `public
+ * routes` matcher are public reads which never need the user, so their token is not verified.
+ */
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
   private TokenAuthenticationService authService;
 
+  private RequestMatcher publicRoutes = request -> false;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return publicRoutes.matches(request);
+  }
+
   @Override
   protected void doFilterInternal(
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -28,4 +40,8 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
   public void setAuthService(TokenAuthenticationService authService) {
     this.authService = authService;
   }
+
+  public void setPublicRoutes(RequestMatcher publicRoutes) {
+    this.publicRoutes = publicRoutes;
+  }
 }
@@ -0,0 +1,9 @@
+package mflix.api.security;
+
+/** Thrown when the password hashing pool is saturated and cannot accept more work. */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+  public PasswordHashingRejectedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,57 @@
+package mflix.api.services;
+
+import com.mongodb.MongoException;
+import mflix.api.daos.CommentDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Periodically rebuilds the commenter counts behind the most active commenters report, see {@link
+ * CommentDao#reconcileCommenterCounts()}. The counts are kept up to date as comments are added and
+ * deleted; reconciliation fixes the drift of comments written or removed outside of the DAO, e.g.
+ * by a migration or while the application was down.
+ *
+ * <p>Reconciliation is opt-in with `api.comments.report.reconcile`, and should be enabled on a
+ * single instance only: every run regroups the whole comments collection, and the counts
+ * incremented while it runs are overwritten by its result. It first runs
+ * `api.comments.report.reconcile_delay_ms` after the application starts, and then every
+ * `api.comments.report.reconcile_ms`.
+ */
+@Service
+public class CommenterCountsReconciler {
+
+  @Autowired private CommentDao commentDao;
+
+  @Value("${api.comments.report.reconcile:false}")
+  private boolean enabled = false;
+
+  private final Logger log;
+
+  public CommenterCountsReconciler() {
+    super();
+    this.log = LoggerFactory.getLogger(this.getClass());
+  }
+
+  @Scheduled(
+      initialDelayString = "${api.comments.report.reconcile_delay_ms:3600000}",
+      fixedDelayString = "${api.comments.report.reconcile_ms:3600000}")
+  public void reconcile() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      long start = System.currentTimeMillis();
+      long commenters = commentDao.reconcileCommenterCounts();
+      log.info(
+          "Reconciled comment counts of {} commenters in {} ms",
+          commenters,
+          System.currentTimeMillis() - start);
+    } catch (MongoException e) {
+      log.warn("Cannot reconcile comment counts: {}", e.getMessage());
+    }
+  }
+}
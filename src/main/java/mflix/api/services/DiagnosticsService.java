@@ -0,0 +1,54 @@
+package mflix.api.services;
+
+import mflix.api.daos.AbstractMFlixDao;
+import mflix.api.daos.IndexManager;
+import mflix.api.daos.QueryPlan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reports how the database serves the application queries: the winning plan of every DAO query
+ * and the state of the declared indexes.
+ */
+@Service
+public class DiagnosticsService {
+
+  @Autowired private List<AbstractMFlixDao> daos;
+
+  @Autowired private IndexManager indexManager;
+
+  public DiagnosticsService() {
+    super();
+  }
+
+  /**
+   * Explains every DAO query. Queries whose winning plan scans the collection are listed under
+   * `collection_scans` key.
+   *
+   * @return Map with the plan summary of each query under `plans` key.
+   */
+  public Map<String, ?> getQueryPlans() {
+    Map<String, Object> plans = new TreeMap<>();
+    List<String> collectionScans = new ArrayList<>();
+    for (AbstractMFlixDao dao : daos) {
+      for (Map.Entry<String, QueryPlan> plan : dao.explainQueries().entrySet()) {
+        plans.put(plan.getKey(), plan.getValue().toMap());
+        if (plan.getValue().isCollectionScan()) {
+          collectionScans.add(plan.getKey());
+        }
+      }
+    }
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("plans", plans);
+    result.put("collection_scans", collectionScans);
+    result.put("indexes", indexManager.getIndexReport());
+    return result;
+  }
+}
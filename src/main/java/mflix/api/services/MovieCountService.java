@@ -0,0 +1,133 @@
+package mflix.api.services;
+
+import mflix.api.cache.LruCache;
+import mflix.api.daos.MovieDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memoizes the total counts of movie searches. Counting a full $text or $in match can be more
+ * expensive than fetching a page of results, so counts are cached per normalized filter for
+ * `api.movies.count.ttl_ms` and, if `api.movies.count.cap` is set, stop at that many documents.
+ * Capped counts are reported as approximate, e.g. "1000+".
+ */
+@Service
+public class MovieCountService {
+
+  @Autowired private MovieDao movieDao;
+
+  @Value("${api.movies.count.max_entries:10000}")
+  private long maxEntries;
+
+  @Value("${api.movies.count.ttl_ms:600000}")
+  private long ttlMillis;
+
+  @Value("${api.movies.count.cap:0}")
+  private int cap;
+
+  private LruCache<String, Long> counts;
+
+  public MovieCountService() {
+    super();
+  }
+
+  @PostConstruct
+  public void init() {
+    this.counts = new LruCache<>("movie_counts", maxEntries, ttlMillis);
+  }
+
+  /**
+   * Counts all movies. Uses the collection metadata, no cap applies.
+   *
+   * @return number of movies.
+   */
+  public long countMovies() {
+    return counts.get("all", key -> movieDao.getMoviesCount());
+  }
+
+  /**
+   * Counts the movies matching the text search keywords.
+   *
+   * @param keywords - List of keywords to be matched
+   * @return number of matching movies, up to the configured cap.
+   */
+  public long countByText(List<String> keywords) {
+    return counts.get(
+        key("text", keywords), key -> movieDao.getTextSearchCount(cap, String.join(" ", keywords)));
+  }
+
+  /**
+   * Counts the movies matching any of the cast members.
+   *
+   * @param cast - cast to be matched
+   * @return number of matching movies, up to the configured cap.
+   */
+  public long countByCast(List<String> cast) {
+    return counts.get(
+        key("cast", cast), key -> movieDao.getCastSearchCount(cap, cast.toArray(new String[0])));
+  }
+
+  /**
+   * Counts the movies matching any of the genres.
+   *
+   * @param genres - genres to be matched
+   * @return number of matching movies, up to the configured cap.
+   */
+  public long countByGenre(List<String> genres) {
+    return counts.get(
+        key("genre", genres),
+        key -> movieDao.getGenresSearchCount(cap, genres.toArray(new String[0])));
+  }
+
+  /**
+   * Memoizes a count computed elsewhere, for example along with the first page of results.
+   *
+   * @param filterType - one of `text`, `cast` or `genre`.
+   * @param filterValues - filter values the count was computed for.
+   * @param count - exact number of matching movies.
+   * @return the count as this service would report it, capped if a cap is configured.
+   */
+  public long record(String filterType, List<String> filterValues, long count) {
+    long reported = cap > 0 ? Math.min(count, cap) : count;
+    counts.put(key(filterType, filterValues), reported);
+    return reported;
+  }
+
+  /**
+   * Checks if a count returned by this service stopped at the configured cap, meaning the actual
+   * number of matches may be larger.
+   *
+   * @param count - count value.
+   * @return true if the count is approximate.
+   */
+  public boolean isCapped(long count) {
+    return cap > 0 && count >= cap;
+  }
+
+  /** Removes all memoized counts. Should be called whenever the movies collection changes. */
+  public void invalidate() {
+    counts.invalidateAll();
+  }
+
+  /**
+   * Collects the count cache counters.
+   *
+   * @return Map of cache statistics.
+   */
+  public Map<String, ?> getCacheStats() {
+    return counts.stats();
+  }
+
+  private static String key(String filterType, List<String> filterValues) {
+    List<String> values = new ArrayList<>(filterValues);
+    Collections.sort(values);
+    return filterType + "|" + String.join("\u0000", values);
+  }
+}
@@ -0,0 +1,102 @@
+package mflix.api.services;
+
+import mflix.api.cache.LruCache;
+import mflix.api.daos.MovieDao;
+import mflix.api.models.Movie;
+import mflix.config.FacetRegistry;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs faceted searches over the dimensions of the {@link FacetRegistry} and caches their facet
+ * buckets. Buckets are computed over all the movies matching a filter, so they do not change from
+ * one result page to the next, and are kept per normalized filter for `api.movies.facets.ttl_ms`.
+ *
+ * <p>The first page requested for a filter runs a single aggregation returning the count and the
+ * buckets of all dimensions. Every page, including the first one, is an indexed fetch of the page
+ * sorted by the default sort key.
+ */
+@Service
+public class MovieFacetService {
+
+  @Autowired private MovieDao movieDao;
+
+  @Autowired private FacetRegistry facetRegistry;
+
+  @Value("${api.movies.facets.max_entries:1000}")
+  private long maxEntries;
+
+  @Value("${api.movies.facets.ttl_ms:600000}")
+  private long ttlMillis;
+
+  private LruCache<String, Document> facets;
+
+  public MovieFacetService() {
+    super();
+  }
+
+  @PostConstruct
+  public void init() {
+    this.facets = new LruCache<>("movie_facets", maxEntries, ttlMillis);
+  }
+
+  /**
+   * Finds a page of the movies matching the filters, together with the buckets of each facet
+   * dimension and the number of matching movies.
+   *
+   * @param filters - Map of dimension names, `cast`, `genres`, `countries` or `year`, to the list
+   *     of accepted values. The controller requires at least one filter, since the
+   *     buckets of an unfiltered search group the whole collection.
+   * @param page - page number.
+   * @param moviesPerPage - max number of movies per page.
+   * @return Map containing the movies array under `movies` key, the buckets of each dimension by
+   *     name under `facets` key and the number of matching movies under `count` key.
+   */
+  public Map<String, ?> getFacetedSearch(
+      Map<String, List<String>> filters, int page, int moviesPerPage) {
+    String key = key(filters);
+    Document buckets =
+        facets.get(key, k -> movieDao.getMovieFacets(filters, facetRegistry.getDimensions()));
+    List<Movie> movies = movieDao.getMovieCards(filters, moviesPerPage, page * moviesPerPage);
+
+    Map<String, Object> results = new HashMap<>();
+    results.put("movies", movies);
+    results.put("facets", buckets.get("facets"));
+    results.put("count", buckets.get("count"));
+    return results;
+  }
+
+  /** Removes all cached buckets. Should be called whenever the movies collection changes. */
+  public void invalidate() {
+    facets.invalidateAll();
+  }
+
+  /**
+   * Collects the facets cache counters.
+   *
+   * @return Map of cache statistics.
+   */
+  public Map<String, ?> getCacheStats() {
+    return facets.stats();
+  }
+
+  private static String key(Map<String, List<String>> filters) {
+    List<String> key = new ArrayList<>();
+    for (Map.Entry<String, List<String>> filter : new TreeMap<>(filters).entrySet()) {
+      List<String> values = new ArrayList<>(filter.getValue());
+      Collections.sort(values);
+      key.add(filter.getKey() + "|" + String.join("\u0000", values));
+    }
+    return String.join("|", key);
+  }
+}
@@ -1,19 +1,30 @@
 package mflix.api.services;
 
+import mflix.api.cache.LruCache;
 import mflix.api.daos.CommentDao;
 import mflix.api.daos.MovieDao;
 import mflix.api.daos.MovieDocumentMapper;
+import mflix.api.daos.PageToken;
+import mflix.api.events.ChangeEventBus;
+import mflix.api.events.ChangeStreamWatcher;
 import mflix.api.models.Comment;
 import mflix.api.models.Critic;
 import mflix.api.models.Movie;
 import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.text.MessageFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,11 +33,84 @@ public class MoviesService {
 
   @Autowired private MovieDao movieDao;
   @Autowired private CommentDao commentDao;
+  @Autowired private MovieCountService movieCountService;
+  @Autowired private MovieFacetService movieFacetService;
+  @Autowired private ChangeEventBus changeEventBus;
+  @Autowired private ChangeStreamWatcher changeStreamWatcher;
+
+  @Value("${api.movies.search.single_round_trip:false}")
+  private boolean singleRoundTripSearch;
+
+  @Value("${api.movies.comments.lookup_limit:50}")
+  private int commentsLookupLimit;
+
+  @Value("${api.movies.cache.max_weight:20000}")
+  private long cacheMaxWeight;
+
+  @Value("${api.movies.cache.ttl_ms:300000}")
+  private long cacheTtlMillis;
+
+  @Value("${api.movies.export.batch_size:1000}")
+  private int exportBatchSize;
+
+  private static final JsonWriterSettings EXPORT_JSON_SETTINGS =
+      JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+
+  private LruCache<String, Map<String, Object>> pageCache;
 
   public MoviesService() {
     super();
   }
 
+  @PostConstruct
+  public void init() {
+    // pages are weighted by the number of movies they hold
+    this.pageCache =
+        new LruCache<>(
+            "movie_pages",
+            cacheMaxWeight,
+            cacheTtlMillis,
+            (key, page) -> 1 + ((List<?>) page.get("movies_list")).size());
+    // any movie write, from this or another instance, can change any cached page or count
+    changeEventBus.subscribe(MovieDao.MOVIES_COLLECTION, event -> invalidateMoviesCache());
+  }
+
+  /**
+   * Builds the normalized cache key of a movies page query: the filter values are sorted so that
+   * the same filter in a different order shares the cache entry.
+   */
+  private static String pageCacheKey(
+      String filterType, List<String> filterValues, int resultsPerPage, int page, String after) {
+    List<String> values = new ArrayList<>(filterValues);
+    Collections.sort(values);
+    return filterType + "|" + String.join("\u0000", values) + "|" + resultsPerPage + "|" + page
+        + "|" + after;
+  }
+
+  /**
+   * Removes all cached movie pages, counts and facets. Called on every change of the movies
+   * collection observed by the {@link ChangeStreamWatcher}.
+   */
+  public void invalidateMoviesCache() {
+    pageCache.invalidateAll();
+    movieCountService.invalidate();
+    movieFacetService.invalidate();
+  }
+
+  /**
+   * Collects the movie pages cache counters.
+   *
+   * @return Map of cache statistics.
+   */
+  public Map<String, ?> getCacheStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("pages", pageCache.stats());
+    stats.put("counts", movieCountService.getCacheStats());
+    stats.put("facets", movieFacetService.getCacheStats());
+    stats.put("changes", changeStreamWatcher.stats());
+    return stats;
+  }
+
   /**
    * Finds the Movie object that matches the `id` value.
    *
@@ -51,7 +135,37 @@ public class MoviesService {
    */
   public String getMovieDocumentFieldType(String movieId, String fieldKey) {
 
-    Object fieldValue = movieDao.getMovie(movieId).get(fieldKey);
+    return getFieldTypeName(movieDao.getMovie(movieId), fieldKey);
+  }
+
+  /**
+   * Finds the Movie object that matches the `id` value, together with the field type class name of
+   * `fieldKey`, using a single movie document fetch.
+   *
+   * @param id - matching movie id.
+   * @param fieldKey - document field name.
+   * @return Map containing the Movie object under `movie` key and the class name of the field type
+   *     under `field_type` key, or null if no match applies.
+   */
+  public Map<String, ?> getMovieWithFieldType(String id, String fieldKey) {
+    Document document = movieDao.getMovie(id);
+    if (document == null) {
+      return null;
+    }
+
+    Movie movie = MovieDocumentMapper.mapToMovie(document);
+    if (movie.getId() == null || movie.getId().isEmpty()) {
+      return null;
+    }
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("movie", movie);
+    result.put("field_type", getFieldTypeName(document, fieldKey));
+    return result;
+  }
+
+  private static String getFieldTypeName(Document document, String fieldKey) {
+    Object fieldValue = document.get(fieldKey);
     return fieldValue == null ? "" : fieldValue.getClass().getName();
   }
 
@@ -64,22 +178,70 @@ public class MoviesService {
    *     key.
    */
   public Map<String, ?> getMovies(int resultsPerPage, int page) {
-    int skip = resultsPerPage * page;
+    return getMovies(resultsPerPage, page, null);
+  }
 
-    List<Movie> movies =
-        movieDao
-            .getMovies(resultsPerPage, skip)
-            .stream()
-            .map(MovieDocumentMapper::mapToMovie)
-            .collect(Collectors.toList());
-    Map<String, Object> result = new HashMap<>();
-    result.put("movies_list", movies);
-    if (page == 0) {
-      result.put("movies_count", movieDao.getMoviesCount());
+  /**
+   * Lists all movies per page. When an `after` page token is provided the page is fetched with
+   * keyset pagination and `page` is ignored, otherwise `page` is used to skip over the previous
+   * results.
+   *
+   * @param resultsPerPage - number of results per page
+   * @param page - result set page
+   * @param after - page token returned with the previous page, or null.
+   * @return Map with list of results under `movies_list` key, total count under `movies_count` key
+   *     and the token of the following page under `next_page` key.
+   */
+  public Map<String, ?> getMovies(int resultsPerPage, int page, String after) {
+    return pageCache.get(
+        pageCacheKey("all", Collections.emptyList(), resultsPerPage, page, after),
+        key -> findMovies(resultsPerPage, page, after));
+  }
+
+  private Map<String, Object> findMovies(int resultsPerPage, int page, String after) {
+    int skip = after == null ? resultsPerPage * page : 0;
+    Map<String, Object> result =
+        buildMoviesPageResult(movieDao.getMovieModels(resultsPerPage, skip, after), resultsPerPage);
+    if (page == 0 && after == null) {
+      putCount(result, movieCountService.countMovies());
     }
     return result;
   }
 
+  /**
+   * Exports the movies that match the given filters to `action`, one JSON document per call, in
+   * ascending `_id` order. Documents are read with a cursor batch size of
+   * `api.movies.export.batch_size` and converted to JSON without being decoded, so the export
+   * runs with constant memory regardless of the number of exported movies.
+   *
+   * @param countries - movies having any of these countries, or null.
+   * @param genres - movies having any of these genres, or null.
+   * @param updatedSince - oldest `lastupdated` value, or null.
+   * @param afterId - `_id` of the last movie of an interrupted export, or null.
+   * @param fields - fields to be exported, or null for all fields.
+   * @param action - consumer of each movie JSON document.
+   */
+  public void exportMovies(
+      List<String> countries,
+      List<String> genres,
+      LocalDateTime updatedSince,
+      ObjectId afterId,
+      List<String> fields,
+      Consumer<String> action) {
+    Date since =
+        updatedSince == null
+            ? null
+            : Date.from(updatedSince.atZone(ZoneId.systemDefault()).toInstant());
+    movieDao.exportMovies(
+        countries,
+        genres,
+        since,
+        afterId,
+        fields,
+        exportBatchSize,
+        document -> action.accept(document.toJson(EXPORT_JSON_SETTINGS)));
+  }
+
   /**
    * Finds all countries that have been recorded
    *
@@ -109,20 +271,45 @@ public class MoviesService {
    * @return Map containing the movies array and total results matching filter criteria.
    */
   public Map<String, ?> getMoviesByText(int resultsPerPage, int page, ArrayList<String> filter) {
-    int skip = resultsPerPage * page;
+    return getMoviesByText(resultsPerPage, page, filter, null);
+  }
+
+  /**
+   * Collects the list of movies that match the Text search for the provided filter. When an `after`
+   * page token is provided the page is fetched with keyset pagination on the text score.
+   *
+   * @param resultsPerPage - max number of results per page
+   * @param page - wanted page number
+   * @param filter - List of keywords to be matched
+   * @param after - page token returned with the previous page, or null.
+   * @return Map containing the movies array, total results matching filter criteria and the token
+   *     of the following page.
+   */
+  public Map<String, ?> getMoviesByText(
+      int resultsPerPage, int page, ArrayList<String> filter, String after) {
+    return pageCache.get(
+        pageCacheKey("text", filter, resultsPerPage, page, after),
+        key -> findMoviesByText(resultsPerPage, page, filter, after));
+  }
+
+  private Map<String, Object> findMoviesByText(
+      int resultsPerPage, int page, List<String> filter, String after) {
     String keywords = String.join(" ", filter);
+    if (singleRoundTripSearch && page == 0 && after == null) {
+      Document pageWithCount = movieDao.getMoviesByTextWithCount(resultsPerPage, 0, keywords);
+      return buildPageResultWithCount(pageWithCount, resultsPerPage, "score", "text", filter);
+    }
 
-    List<Movie> movieList =
-        movieDao
-            .getMoviesByText(resultsPerPage, skip, keywords)
-            .stream()
-            .map(MovieDocumentMapper::mapToMovie)
-            .collect(Collectors.toList());
-    Map<String, Object> result = new HashMap<>();
-    result.put("movies_list", movieList);
+    List<Document> documents;
+    if (after != null) {
+      documents = movieDao.getMoviesByText(resultsPerPage, after, keywords);
+    } else {
+      documents = movieDao.getMoviesByText(resultsPerPage, resultsPerPage * page, keywords);
+    }
 
-    if (page == 0) {
-      result.put("movies_count", movieDao.getTextSearchCount(keywords));
+    Map<String, Object> result = buildPageResult(documents, resultsPerPage, "score");
+    if (page == 0 && after == null) {
+      putCount(result, movieCountService.countByText(filter));
     }
     return result;
   }
@@ -137,22 +324,43 @@ public class MoviesService {
    */
   public Map<String, ?> getMoviesByCast(
       int resultsPerPage, int page, ArrayList<String> castFilter) {
-    int skip = page * resultsPerPage;
+    return getMoviesByCast(resultsPerPage, page, castFilter, null);
+  }
 
-    String[] cast = castFilter.toArray(new String[0]);
-    String sortKey = "tomatoes.viewer.numReviews";
-    List<Movie> movieList =
-        movieDao
-            .getMoviesByCast(sortKey, resultsPerPage, skip, cast)
-            .stream()
-            .map(MovieDocumentMapper::mapToMovie)
-            .collect(Collectors.toList());
+  /**
+   * Finds all movies that match the expected cast members. When an `after` page token is provided
+   * the page is fetched with keyset pagination.
+   *
+   * @param resultsPerPage - max number of movies per page
+   * @param page - wanted page number
+   * @param castFilter - cast to be matched
+   * @param after - page token returned with the previous page, or null.
+   * @return Map containing the movies array, total results matching filter criteria and the token
+   *     of the following page.
+   */
+  public Map<String, ?> getMoviesByCast(
+      int resultsPerPage, int page, ArrayList<String> castFilter, String after) {
+    return pageCache.get(
+        pageCacheKey("cast", castFilter, resultsPerPage, page, after),
+        key -> findMoviesByCast(resultsPerPage, page, castFilter, after));
+  }
 
-    Map<String, Object> result = new HashMap<>();
-    result.put("movies_list", movieList);
+  private Map<String, Object> findMoviesByCast(
+      int resultsPerPage, int page, List<String> castFilter, String after) {
+    String[] cast = castFilter.toArray(new String[0]);
+    String sortKey = MovieDao.DEFAULT_SORT_KEY;
+    if (singleRoundTripSearch && page == 0 && after == null) {
+      Document pageWithCount = movieDao.getMoviesByCastWithCount(sortKey, resultsPerPage, 0, cast);
+      return buildPageResultWithCount(pageWithCount, resultsPerPage, sortKey, "cast", castFilter);
+    }
 
-    if (page == 0) {
-      result.put("movies_count", movieDao.getCastSearchCount(cast));
+    int skip = after == null ? resultsPerPage * page : 0;
+    Map<String, Object> result =
+        buildMoviesPageResult(
+            movieDao.getMovieModelsByCast(sortKey, resultsPerPage, skip, after, cast),
+            resultsPerPage);
+    if (page == 0 && after == null) {
+      putCount(result, movieCountService.countByCast(castFilter));
     }
     return result;
   }
@@ -167,23 +375,166 @@ public class MoviesService {
    */
   public Map<String, ?> getMoviesByGenre(
       int resultsPerPage, int page, ArrayList<String> genreFilters) {
-    int skip = page * resultsPerPage;
+    return getMoviesByGenre(resultsPerPage, page, genreFilters, null);
+  }
+
+  /**
+   * Finds all movies that match the wanted genre. When an `after` page token is provided the page
+   * is fetched with keyset pagination.
+   *
+   * @param resultsPerPage - number of results per page.
+   * @param page - page identifier.
+   * @param genreFilters - genres filter.
+   * @param after - page token returned with the previous page, or null.
+   * @return Map containing the movies array, total results matching filter criteria and the token
+   *     of the following page.
+   */
+  public Map<String, ?> getMoviesByGenre(
+      int resultsPerPage, int page, ArrayList<String> genreFilters, String after) {
+    return pageCache.get(
+        pageCacheKey("genre", genreFilters, resultsPerPage, page, after),
+        key -> findMoviesByGenre(resultsPerPage, page, genreFilters, after));
+  }
 
+  private Map<String, Object> findMoviesByGenre(
+      int resultsPerPage, int page, List<String> genreFilters, String after) {
     String[] genres = genreFilters.toArray(new String[0]);
-    String sortKey = "tomatoes.viewer.numReviews";
-    List<Movie> movieList =
-        movieDao
-            .getMoviesByGenre(sortKey, resultsPerPage, skip, genres)
-            .stream()
-            .map(MovieDocumentMapper::mapToMovie)
-            .collect(Collectors.toList());
+    String sortKey = MovieDao.DEFAULT_SORT_KEY;
+    if (singleRoundTripSearch && page == 0 && after == null) {
+      Document pageWithCount =
+          movieDao.getMoviesByGenreWithCount(sortKey, resultsPerPage, 0, genres);
+      return buildPageResultWithCount(
+          pageWithCount, resultsPerPage, sortKey, "genre", genreFilters);
+    }
 
-    Map<String, Object> result = new HashMap<>();
-    result.put("movies_list", movieList);
+    int skip = after == null ? resultsPerPage * page : 0;
+    Map<String, Object> result =
+        buildMoviesPageResult(
+            movieDao.getMovieModelsByGenre(sortKey, resultsPerPage, skip, after, genres),
+            resultsPerPage);
+    if (page == 0 && after == null) {
+      putCount(result, movieCountService.countByGenre(genreFilters));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the total count to be reported along with a streamed page of movies, see {@link
+   * #streamMovies(String, List, int, int, String, Consumer)}. Also checks the `after` page token,
+   * so that an invalid token is reported before any movie is streamed.
+   *
+   * @param filterType - one of `all`, `cast` or `genre`.
+   * @param filterValues - filter values, ignored for `all`.
+   * @param page - result set page.
+   * @param after - page token returned with the previous page, or null.
+   * @return number of matching movies, or null if the count is not reported for this page.
+   */
+  public Long getMoviesStreamCount(
+      String filterType, List<String> filterValues, int page, String after) {
+    if (after != null) {
+      PageToken.decode(after);
+      return null;
+    }
+    if (page != 0) {
+      return null;
+    }
+    switch (filterType) {
+      case "cast":
+        return movieCountService.countByCast(filterValues);
+      case "genre":
+        return movieCountService.countByGenre(filterValues);
+      default:
+        return movieCountService.countMovies();
+    }
+  }
 
-    if (page == 0) {
-      result.put("movies_count", movieDao.getCastSearchCount(genres));
+  /**
+   * Streams a page of movies to `action` straight from the database cursor, one Movie at a time,
+   * instead of collecting the page into a list. Streamed pages bypass the page cache, so memory
+   * used per request does not grow with the page size.
+   *
+   * @param filterType - one of `all`, `cast` or `genre`.
+   * @param filterValues - filter values, ignored for `all`.
+   * @param resultsPerPage - number of results per page.
+   * @param page - result set page, ignored if `after` is provided.
+   * @param after - page token returned with the previous page, or null.
+   * @param action - consumer of each Movie object.
+   * @return token of the following page, or null if this page is the last one.
+   */
+  public String streamMovies(
+      String filterType,
+      List<String> filterValues,
+      int resultsPerPage,
+      int page,
+      String after,
+      Consumer<Movie> action) {
+    int skip = after == null ? resultsPerPage * page : 0;
+    String sortKey = MovieDao.DEFAULT_SORT_KEY;
+    Movie[] last = new Movie[1];
+    int[] streamed = new int[1];
+    Consumer<Movie> tracking =
+        movie -> {
+          action.accept(movie);
+          last[0] = movie;
+          streamed[0]++;
+        };
+
+    switch (filterType) {
+      case "cast":
+        movieDao.streamMovieModelsByCast(
+            sortKey, resultsPerPage, skip, after, tracking, filterValues.toArray(new String[0]));
+        break;
+      case "genre":
+        movieDao.streamMovieModelsByGenre(
+            sortKey, resultsPerPage, skip, after, tracking, filterValues.toArray(new String[0]));
+        break;
+      default:
+        movieDao.streamMovieModels(resultsPerPage, skip, after, tracking);
     }
+
+    if (last[0] == null || streamed[0] < resultsPerPage) {
+      return null;
+    }
+    return PageToken.fromMovie(last[0]).encode();
+  }
+
+  private void putCount(Map<String, Object> result, long count) {
+    result.put("movies_count", count);
+    if (movieCountService.isCapped(count)) {
+      result.put("movies_count_capped", true);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> buildPageResultWithCount(
+      Document pageWithCount,
+      int resultsPerPage,
+      String sortKey,
+      String filterType,
+      List<String> filterValues) {
+    Map<String, Object> result =
+        buildPageResult((List<Document>) pageWithCount.get("movies"), resultsPerPage, sortKey);
+    putCount(
+        result,
+        movieCountService.record(filterType, filterValues, pageWithCount.getLong("count")));
+    return result;
+  }
+
+  /** Builds a page result from movies decoded by the DAO, sorted by the default sort key. */
+  private Map<String, Object> buildMoviesPageResult(List<Movie> movies, int resultsPerPage) {
+    Map<String, Object> result = new HashMap<>();
+    result.put("movies_list", movies);
+    result.put("next_page", PageToken.nextMovies(movies, resultsPerPage));
+    return result;
+  }
+
+  private Map<String, Object> buildPageResult(
+      List<Document> documents, int resultsPerPage, String sortKey) {
+    Map<String, Object> result = new HashMap<>();
+    result.put(
+        "movies_list",
+        documents.stream().map(MovieDocumentMapper::mapToMovie).collect(Collectors.toList()));
+    result.put("next_page", PageToken.next(documents, resultsPerPage, sortKey));
     return result;
   }
 
@@ -193,7 +544,7 @@ public class MoviesService {
    * @return number of movies
    */
   public long getMoviesCount() {
-    return movieDao.getMoviesCount();
+    return movieCountService.countMovies();
   }
 
   /**
@@ -202,29 +553,46 @@ public class MoviesService {
    * @param cast - cast members to be matched
    * @param page - page number
    * @param moviesPerPage - max number of movies per page
-   * @return Map containing the movies array, rating buckets, runtime bucket and total count of
-   *     results matching filter criteria.
+   * @return Map containing the movies array, the buckets of each facet dimension and total count
+   *     of results matching filter criteria.
+   * @see #getMovieFacetedSearch(Map, int, int)
    */
   public Map<String, ?> getMovieFacetedSearch(ArrayList<String> cast, int page, int moviesPerPage) {
-    int skip = page * moviesPerPage;
-    Map<String, Object> results = new HashMap<>();
-
-    List<Movie> movies = new ArrayList<>();
-    Document facetResult =
-        movieDao.getMoviesCastFaceted(moviesPerPage, skip, cast.toArray(new String[0])).get(0);
+    return getMovieFacetedSearch(Collections.singletonMap("cast", cast), page, moviesPerPage);
+  }
 
-    if (facetResult != null) {
-      ArrayList<Document> moviesArray = (ArrayList<Document>) facetResult.get("movies");
+  /**
+   * List of movies matching the faceted search request. The buckets of the configured facet
+   * dimensions cover all the movies matching `filters` and are cached, see {@link
+   * MovieFacetService}, so that changing page only fetches the page of movies.
+   *
+   * @param filters - Map of `cast`, `genres`, `countries` or `year` to the values to be matched
+   * @param page - page number
+   * @param moviesPerPage - max number of movies per page
+   * @return Map containing the movies array under `movies` key, the buckets of each facet
+   *     dimension under `facets` key and total count of results matching filter criteria under
+   *     `count` key.
+   */
+  public Map<String, ?> getMovieFacetedSearch(
+      Map<String, List<String>> filters, int page, int moviesPerPage) {
+    return movieFacetService.getFacetedSearch(filters, page, moviesPerPage);
+  }
 
-      if (moviesArray != null) {
-        moviesArray.iterator().forEachRemaining(x -> movies.add(MovieDocumentMapper.mapToMovie(x)));
-      }
-      results.put("movies", movies);
-      results.put("rating", facetResult.get("rating"));
-      results.put("runtime", facetResult.get("runtime"));
-      results.put("count", movieDao.getCastSearchCount(cast.toArray(new String[0])));
-    }
-    return results;
+  /**
+   * Lists the comments of a movie, most recent first, one page at a time.
+   *
+   * @param movieId - movie identifier.
+   * @param commentsPerPage - max number of comments per page.
+   * @param after - page token returned with the previous page, or null for the first page.
+   * @return Map containing the comments array under `comments` key and the token of the following
+   *     page under `next_page` key.
+   */
+  public Map<String, ?> getMovieComments(String movieId, int commentsPerPage, String after) {
+    List<Comment> comments = commentDao.getMovieComments(movieId, commentsPerPage, after);
+    Map<String, Object> result = new HashMap<>();
+    result.put("comments", comments);
+    result.put("next_page", CommentDao.nextPageToken(comments, commentsPerPage));
+    return result;
   }
 
   /**
@@ -260,8 +628,7 @@ public class MoviesService {
       }
     }
 
-    Movie movie = MovieDocumentMapper.mapToMovie(movieDao.getMovie(updateComment.getMovieId()));
-    results.put("comments", movie.getComments());
+    results.put("comments", getRecentComments(updateComment.getMovieId()));
     return true;
   }
 
@@ -290,8 +657,7 @@ public class MoviesService {
       return false;
     }
 
-    Movie movie = MovieDocumentMapper.mapToMovie(movieDao.getMovie(movieId));
-    results.put("comments", movie.getComments());
+    results.put("comments", getRecentComments(movieId));
     return true;
   }
 
@@ -314,11 +680,18 @@ public class MoviesService {
       return false;
     }
 
-    Movie movie = MovieDocumentMapper.mapToMovie(movieDao.getMovie(movieId));
-    results.put("comments", movie.getComments());
+    results.put("comments", getRecentComments(movieId));
     return true;
   }
 
+  /**
+   * Reads the most recent comments of a movie, the same ones embedded by the movie lookup, straight
+   * from the comments collection so that comment writes do not re-run the whole movie aggregation.
+   */
+  private List<Comment> getRecentComments(String movieId) {
+    return commentDao.getMovieComments(movieId, commentsLookupLimit, null);
+  }
+
   /**
    * Bypass method that returns the list of most active users in terms of comments made in MFlix.
    *
@@ -1,7 +1,9 @@
 package mflix.api.services;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import mflix.api.cache.LruCache;
 import mflix.api.models.UserPrincipal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,22 +13,58 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.util.Collections.emptyList;
 
+/**
+ * Mints and verifies the JWT of authenticated users. Verified tokens are cached by their SHA-256
+ * digest with the token subject, so that the tokens repeated by every request of a session skip
+ * parsing and signature verification. Cached tokens expire with the token itself, and at most
+ * `api.jwt.cache.ttl_ms` after they were verified.
+ */
 @Service
 @Configuration
 public class TokenAuthenticationService {
 
+  /** Subject and expiry of a verified token. */
+  private static class VerifiedToken {
+    private final String subject;
+    private final Date expiration;
+
+    private VerifiedToken(String subject, Date expiration) {
+      this.subject = subject;
+      this.expiration = expiration;
+    }
+  }
+
   @Value("${jwtExpirationInMs}")
   private long jwtExpirationInMs;
 
   @Value("${jwtSecret}")
   private String jwtSecret;
 
+  @Value("${api.jwt.cache.max_entries:10000}")
+  private long cacheMaxEntries;
+
+  @Value("${api.jwt.cache.ttl_ms:300000}")
+  private long cacheTtlMillis;
+
+  private LruCache<String, VerifiedToken> verifiedTokens;
+
+  private final AtomicLong verifications = new AtomicLong();
+
+  private final AtomicLong rejections = new AtomicLong();
+
   private final String TOKEN_PREFIX = "Bearer";
   private final String HEADER_STRING = "Authorization";
 
@@ -37,6 +75,11 @@ public class TokenAuthenticationService {
     log = LoggerFactory.getLogger(this.getClass());
   }
 
+  @PostConstruct
+  public void init() {
+    this.verifiedTokens = new LruCache<>("verified_tokens", cacheMaxEntries, cacheTtlMillis);
+  }
+
   public String mintJWTHeader(String username) {
     String JWT =
         Jwts.builder()
@@ -57,16 +100,54 @@ public class TokenAuthenticationService {
   }
 
   public String getAuthenticationUser(String token) {
+    String jwt = trimToken(token);
+    String digest = digest(jwt);
+    VerifiedToken verified = verifiedTokens.get(digest);
+    if (verified != null) {
+      return verified.subject;
+    }
     try {
-      return Jwts.parser()
-          .setSigningKey(jwtSecret)
-          .parseClaimsJws(trimToken(token))
-          .getBody()
-          .getSubject();
+      verifications.incrementAndGet();
+      Claims claims = Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(jwt).getBody();
+      verified = new VerifiedToken(claims.getSubject(), claims.getExpiration());
     } catch (Exception e) {
-      log.error("Cannot validate user token `{}`: error thrown - {}", token, e.getMessage());
+      rejections.incrementAndGet();
+      // never log the token, which is a credential
+      log.debug("Cannot validate user token: error thrown - {}", e.getMessage());
+      return null;
     }
-    return null;
+    if (verified.expiration == null) {
+      verifiedTokens.put(digest, verified);
+    } else {
+      verifiedTokens.put(
+          digest, verified, verified.expiration.getTime() - System.currentTimeMillis());
+    }
+    return verified.subject;
+  }
+
+  /** Digests the token so that the cache does not hold usable credentials. */
+  private static String digest(String jwt) {
+    try {
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder()
+          .encodeToString(sha256.digest(jwt.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform implements SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Collects the verified tokens cache counters.
+   *
+   * @return Map of cache statistics, with the number of signature `verifications` and rejected
+   *     tokens under `rejections` key.
+   */
+  public Map<String, Object> getCacheStats() {
+    Map<String, Object> stats = verifiedTokens.stats();
+    stats.put("verifications", verifications.get());
+    stats.put("rejections", rejections.get());
+    return stats;
   }
 
   public Authentication getAuthentication(HttpServletRequest request) {
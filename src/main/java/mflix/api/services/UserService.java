@@ -2,9 +2,13 @@ package mflix.api.services;
 
 import mflix.api.daos.IncorrectDaoOperation;
 import mflix.api.daos.UserDao;
+import mflix.api.events.ChangeEvent;
+import mflix.api.events.ChangeEventBus;
 import mflix.api.models.User;
 import mflix.api.models.UserPrincipal;
 import mflix.api.models.UserRegistry;
+import mflix.api.security.BoundedPasswordEncoder;
+import org.bson.BsonValue;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,6 +20,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -31,10 +36,30 @@ public class UserService implements UserDetailsService {
 
   @Autowired private UserDao userDao;
 
+  @Autowired private ChangeEventBus changeEventBus;
+
   public UserService() {
     super();
   }
 
+  @PostConstruct
+  public void init() {
+    changeEventBus.subscribe("users", this::onUserChange);
+  }
+
+  /**
+   * Removes the cached user of a changed user document, or all cached users when changes may have
+   * been missed.
+   */
+  private void onUserChange(ChangeEvent event) {
+    BsonValue id = event.getDocumentKey();
+    if (event.isReset() || id == null || !id.isObjectId()) {
+      userDao.invalidateUsers();
+    } else {
+      userDao.invalidateUser(id.asObjectId().getValue());
+    }
+  }
+
   /**
    * Creates an user from a given UserRegistry object. Encodes the password and saves the user in
    * the database.
@@ -129,14 +154,14 @@ public class UserService implements UserDetailsService {
    * @return true if successful deletes the user from mflix
    */
   public boolean deleteUser(String email, String password, Map<String, String> results) {
-    // check if hashed password matches
-    String hpwd = passwordEncoder.encode(password);
-    if (userDao.getUser(email) == null) {
+    User user = userDao.getUser(email);
+    if (user == null) {
       results.put("msg", "user does not exist");
       return false;
     }
 
-    if (!passwordEncoder.matches(password, hpwd)) {
+    // check if hashed password matches
+    if (!passwordEncoder.matches(password, user.getHashedpw())) {
       results.put("msg", "passwords do not match");
       return false;
     }
@@ -177,4 +202,15 @@ public class UserService implements UserDetailsService {
     }
     return UserPrincipal.create(user);
   }
+
+  /**
+   * Collects the password hashing pool counters.
+   *
+   * @return Map of hashing pool statistics, empty if hashing does not run on a bounded pool.
+   */
+  public Map<String, Object> getPasswordHashingStats() {
+    return passwordEncoder instanceof BoundedPasswordEncoder
+        ? ((BoundedPasswordEncoder) passwordEncoder).stats()
+        : new HashMap<>();
+  }
 }
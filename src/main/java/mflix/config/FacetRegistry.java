@@ -0,0 +1,72 @@
+package mflix.config;
+
+import mflix.api.daos.FacetDefinition;
+import mflix.api.daos.IncorrectDaoOperation;
+import mflix.api.daos.MovieDao;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Registry of the faceted search dimensions, loaded from the `api.movies.facets.dimensions`
+ * properties, e.g.:
+ *
+ * <pre>
+ * api.movies.facets.dimensions[0].name=runtime
+ * api.movies.facets.dimensions[0].field=runtime
+ * api.movies.facets.dimensions[0].boundaries=0,60,90,120,180
+ * api.movies.facets.dimensions[1].name=year
+ * api.movies.facets.dimensions[1].field=year
+ * api.movies.facets.dimensions[1].buckets=5
+ * api.movies.facets.dimensions[2].name=genres
+ * api.movies.facets.dimensions[2].field=genres
+ * api.movies.facets.dimensions[2].top=10
+ * </pre>
+ *
+ * <p>If no dimension is configured, the runtime and rating dimensions are used. Dimension names
+ * must be unique and cannot be {@link MovieDao#FACET_COUNT}, the name of the movies count output.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "api.movies.facets")
+public class FacetRegistry {
+
+  private List<FacetDefinition> dimensions = new ArrayList<>();
+
+  public FacetRegistry() {
+    super();
+  }
+
+  @PostConstruct
+  public void init() {
+    if (dimensions.isEmpty()) {
+      dimensions = Arrays.asList(MovieDao.runtimeFacet(), MovieDao.ratingFacet());
+    }
+    // fail on startup rather than on the first faceted search
+    Set<String> names = new HashSet<>();
+    for (FacetDefinition dimension : dimensions) {
+      dimension.toFacet();
+      if (MovieDao.FACET_COUNT.equals(dimension.getName())) {
+        throw new IncorrectDaoOperation(
+            "Facet dimension name `" + MovieDao.FACET_COUNT + "` is reserved");
+      }
+      if (!names.add(dimension.getName())) {
+        throw new IncorrectDaoOperation(
+            "Facet dimension name `" + dimension.getName() + "` is used more than once");
+      }
+    }
+  }
+
+  public List<FacetDefinition> getDimensions() {
+    return dimensions;
+  }
+
+  public void setDimensions(List<FacetDefinition> dimensions) {
+    this.dimensions = dimensions;
+  }
+}
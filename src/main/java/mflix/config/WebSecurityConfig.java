@@ -1,9 +1,11 @@
 package mflix.config;
 
+import mflix.api.security.BoundedPasswordEncoder;
 import mflix.api.security.JWTAuthEntryPoint;
 import mflix.api.security.JWTAuthenticationFilter;
 import mflix.api.services.TokenAuthenticationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -16,14 +18,61 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
-  @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  /** Movie reads that require an authenticated user: the export and the cache statistics. */
+  private static final String[] AUTHENTICATED_READS = {
+    "/api/v1/movies/export", "/api/v1/movies/cache-stats"
+  };
+
+  /**
+   * Public reads: movie lookups and searches, except the authenticated reads, and static assets.
+   * They are permitted to all and skip JWT verification, while movie comment writes still get
+   * the authenticated user. The exclusion also covers the trailing slash and suffix variants that
+   * Spring MVC maps to the authenticated handlers.
+   */
+  public static final RequestMatcher PUBLIC_READS =
+      new OrRequestMatcher(
+          new AndRequestMatcher(
+              new AntPathRequestMatcher("/api/v1/movies/**", HttpMethod.GET.name()),
+              new NegatedRequestMatcher(authenticatedReads())),
+          new AntPathRequestMatcher("/", HttpMethod.GET.name()),
+          new AntPathRequestMatcher("/**/*.{js,html,css}", HttpMethod.GET.name()));
+
+  private static RequestMatcher authenticatedReads() {
+    List<RequestMatcher> matchers = new ArrayList<>();
+    for (String path : AUTHENTICATED_READS) {
+      matchers.add(new AntPathRequestMatcher(path + "/**"));
+      matchers.add(new AntPathRequestMatcher(path + ".*"));
+    }
+    return new OrRequestMatcher(matchers);
+  }
+
+  /**
+   * BCrypt encoder running on a bounded hashing pool, see {@link BoundedPasswordEncoder}. The
+   * BCrypt cost only applies to new hashes, existing hashes are checked with the cost they were
+   * created with.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public PasswordEncoder passwordEncoder(
+      @Value("${api.passwords.bcrypt.strength:10}") int strength,
+      @Value("${api.passwords.hashing.threads:0}") int threads,
+      @Value("${api.passwords.hashing.queue_capacity:100}") int queueCapacity) {
+    return new BoundedPasswordEncoder(
+        new BCryptPasswordEncoder(strength),
+        threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+        queueCapacity);
   }
 
   @Autowired private JWTAuthEntryPoint unauthorizedHandler;
@@ -34,6 +83,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
   protected void configure(HttpSecurity http) throws Exception {
     JWTAuthenticationFilter authFilter = new JWTAuthenticationFilter();
     authFilter.setAuthService(authService);
+    authFilter.setPublicRoutes(PUBLIC_READS);
     http.csrf()
         .disable()
         .exceptionHandling()
@@ -45,6 +95,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
         .authorizeRequests()
         .antMatchers(HttpMethod.OPTIONS)
         .permitAll()
+        .mvcMatchers(AUTHENTICATED_READS)
+        .authenticated()
         .antMatchers("/api/v1/movies/**")
         .permitAll()
         .antMatchers("/")
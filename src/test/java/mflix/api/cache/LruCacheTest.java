@@ -0,0 +1,144 @@
+package mflix.api.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LruCacheTest {
+
+  @Test
+  public void testReadThrough() {
+    LruCache<String, String> cache = new LruCache<>("test", 10, 60000);
+    Assert.assertEquals("value", cache.get("key", k -> "value"));
+    Assert.assertEquals("Second read should be a hit", "value", cache.get("key", k -> "other"));
+
+    Map<String, Object> stats = cache.stats();
+    Assert.assertEquals(1L, stats.get("hits"));
+    Assert.assertEquals(1L, stats.get("misses"));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    LruCache<String, String> cache = new LruCache<>("test", 2, 60000);
+    cache.put("a", "a");
+    cache.put("b", "b");
+    cache.get("a");
+    cache.put("c", "c");
+
+    Assert.assertEquals("a", cache.get("a"));
+    Assert.assertNull("Least recently used entry should be evicted", cache.get("b"));
+    Assert.assertEquals("c", cache.get("c"));
+    Assert.assertEquals(1L, cache.stats().get("evictions"));
+  }
+
+  @Test
+  public void testMaxWeight() {
+    LruCache<String, String> cache = new LruCache<>("test", 10, 60000, (k, v) -> v.length());
+    cache.put("a", "123456");
+    cache.put("b", "12345");
+    Assert.assertNull("Total weight should not exceed max weight", cache.get("a"));
+    Assert.assertEquals(5L, cache.stats().get("weight"));
+
+    cache.put("c", "12345678901");
+    Assert.assertNull("Entries heavier than max weight should not be cached", cache.get("c"));
+  }
+
+  @Test
+  public void testExpiry() throws InterruptedException {
+    LruCache<String, String> cache = new LruCache<>("test", 10, 1);
+    cache.put("a", "a");
+    Thread.sleep(5);
+    Assert.assertNull("Expired entries should not be returned", cache.get("a"));
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testPurgesExpiredBeforeEviction() throws InterruptedException {
+    LruCache<String, String> cache = new LruCache<>("test", 2, 60000);
+    cache.put("a", "a");
+    cache.put("expiring", "expiring", 1);
+    Thread.sleep(5);
+    cache.put("b", "b");
+
+    Assert.assertEquals("Expired entries should be purged first", "a", cache.get("a"));
+    Assert.assertEquals("b", cache.get("b"));
+    Assert.assertEquals(0L, cache.stats().get("evictions"));
+    Assert.assertEquals(2L, cache.stats().get("weight"));
+  }
+
+  @Test
+  public void testInvalidate() {
+    LruCache<String, String> cache = new LruCache<>("test", 10, 60000);
+    cache.put("cast|a", "a");
+    cache.put("genre|b", "b");
+    cache.invalidateIf(k -> k.startsWith("cast|"));
+    Assert.assertNull(cache.get("cast|a"));
+    Assert.assertEquals("b", cache.get("genre|b"));
+
+    cache.invalidateAll();
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0L, cache.stats().get("weight"));
+  }
+
+  /** Loads `key` in the background, calling `invalidation` while the load is running. */
+  private static String loadAcross(
+      LruCache<String, String> cache, String key, Runnable invalidation) throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch invalidated = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<String> load =
+        executor.submit(
+            () ->
+                cache.get(
+                    key,
+                    k -> {
+                      loading.countDown();
+                      try {
+                        invalidated.await();
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                      }
+                      return "loaded";
+                    }));
+
+    loading.await();
+    invalidation.run();
+    invalidated.countDown();
+    try {
+      return load.get();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testInvalidateDuringLoad() throws Exception {
+    LruCache<String, String> cache = new LruCache<>("test", 10, 60000);
+
+    Assert.assertEquals(
+        "The loaded value should still be returned",
+        "loaded",
+        loadAcross(cache, "key", cache::invalidateAll));
+    Assert.assertNull(
+        "A value loaded across an invalidation should not be cached", cache.get("key"));
+    Assert.assertEquals("fresh", cache.get("key", k -> "fresh"));
+
+    loadAcross(cache, "other", () -> cache.invalidate("other"));
+    Assert.assertNull(
+        "A value loaded across an invalidation of its key should not be cached",
+        cache.get("other"));
+  }
+
+  @Test
+  public void testInvalidateOtherKeyDuringLoad() throws Exception {
+    LruCache<String, String> cache = new LruCache<>("test", 10, 60000);
+    loadAcross(cache, "key", () -> cache.invalidate("other"));
+    Assert.assertEquals(
+        "Invalidating another key should not drop the load", "loaded", cache.get("key"));
+  }
+}
@@ -0,0 +1,70 @@
+package mflix.api.daos;
+
+import com.mongodb.client.MongoClient;
+import mflix.api.models.Comment;
+import mflix.config.MongoDBConfiguration;
+import org.bson.Document;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.List;
+
+@SpringBootTest(classes = {MongoDBConfiguration.class})
+@EnableConfigurationProperties
+@EnableAutoConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+public class CommentPagingTest extends TicketTest {
+
+  private MovieDao movieDao;
+  private CommentDao commentDao;
+  @Autowired MongoClient mongoClient;
+
+  @Value("${spring.mongodb.database}")
+  String databaseName;
+
+  private String movieId = "573a1390f29313caabcd418c";
+
+  @Before
+  public void setup() {
+    this.movieDao = new MovieDao(mongoClient, databaseName);
+    this.commentDao = new CommentDao(mongoClient, databaseName);
+  }
+
+  @Test
+  public void testMovieCommentsCount() {
+    Document movie = movieDao.getMovie(movieId);
+    Assert.assertEquals(
+        "Check the comments count lookup in getMovie()",
+        2,
+        (int) movie.getInteger("comments_count"));
+    Assert.assertEquals(2, commentDao.getMovieCommentsCount(movieId));
+  }
+
+  @Test
+  public void testMovieCommentsPaging() {
+    List<Comment> firstPage = commentDao.getMovieComments(movieId, 1, null);
+    Assert.assertEquals(1, firstPage.size());
+    String after = CommentDao.nextPageToken(firstPage, 1);
+    Assert.assertNotNull("Full page should produce a next page token", after);
+
+    List<Comment> secondPage = commentDao.getMovieComments(movieId, 1, after);
+    Assert.assertEquals(1, secondPage.size());
+    Assert.assertEquals(
+        "Comments should be sorted by date descending. Check getMovieComments()",
+        "Patricia Good",
+        secondPage.get(0).getName());
+
+    after = CommentDao.nextPageToken(secondPage, 1);
+    Assert.assertTrue(
+        "No comments expected after the last page",
+        commentDao.getMovieComments(movieId, 1, after).isEmpty());
+  }
+}
@@ -0,0 +1,76 @@
+package mflix.api.daos;
+
+import com.mongodb.client.MongoClient;
+import mflix.config.MongoDBConfiguration;
+import org.bson.Document;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.List;
+
+@SpringBootTest(classes = {MongoDBConfiguration.class})
+@EnableConfigurationProperties
+@EnableAutoConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+public class CountTest extends TicketTest {
+
+  private MovieDao dao;
+  @Autowired MongoClient mongoClient;
+
+  @Value("${spring.mongodb.database}")
+  String databaseName;
+
+  @Before
+  public void setup() {
+    this.dao = new MovieDao(mongoClient, databaseName);
+  }
+
+  @Test
+  public void testCappedCounts() {
+    Assert.assertEquals("Check getCastSearchCount()", 51, dao.getCastSearchCount("Tom Hanks"));
+    Assert.assertEquals(
+        "Capped count should stop at the limit", 20, dao.getCastSearchCount(20, "Tom Hanks"));
+    Assert.assertEquals(
+        "Exact count expected when limit is 0", 51, dao.getCastSearchCount(0, "Tom Hanks"));
+    Assert.assertEquals(
+        "Capped count should stop at the limit", 1000, dao.getTextSearchCount(1000, "bank robbery"));
+    Assert.assertEquals(
+        "Limit above the match count should return the exact count",
+        1503,
+        dao.getGenresSearchCount(5000, "History"));
+  }
+
+  @Test
+  public void testEstimatedMoviesCount() {
+    Assert.assertTrue("Movies collection should not be empty", dao.getMoviesCount() > 0);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testPageWithCount() {
+    Document castPage =
+        dao.getMoviesByCastWithCount(MovieDao.DEFAULT_SORT_KEY, 20, 40, "Tom Hanks");
+    Assert.assertEquals("Check the count facet", 51L, (long) castPage.getLong("count"));
+    Assert.assertEquals(
+        "Check the movies facet paging", 11, ((List<Document>) castPage.get("movies")).size());
+
+    Document textPage = dao.getMoviesByTextWithCount(20, 0, "bank robbery");
+    Assert.assertEquals("Check the count facet", 1084L, (long) textPage.getLong("count"));
+    List<Document> textMovies = (List<Document>) textPage.get("movies");
+    List<Document> expected = dao.getMoviesByText(20, 0, "bank robbery");
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertEquals(
+          "Text results should be sorted by score",
+          expected.get(i).getObjectId("_id"),
+          textMovies.get(i).getObjectId("_id"));
+    }
+  }
+}
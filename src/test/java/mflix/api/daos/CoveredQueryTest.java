@@ -0,0 +1,57 @@
+package mflix.api.daos;
+
+import com.mongodb.client.MongoClient;
+import mflix.config.MongoDBConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@SpringBootTest(classes = {MongoDBConfiguration.class})
+@EnableConfigurationProperties
+@EnableAutoConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+public class CoveredQueryTest extends TicketTest {
+
+  private MovieDao dao;
+  @Autowired MongoClient mongoClient;
+
+  @Value("${spring.mongodb.database}")
+  String databaseName;
+
+  @Before
+  public void setup() {
+    this.dao = new MovieDao(mongoClient, databaseName);
+    this.dao.createIndexes();
+  }
+
+  @Test
+  public void testCountryLookupIsCovered() {
+    QueryPlan plan = new QueryPlan(dao.explainMoviesByCountry("Kosovo"));
+
+    Assert.assertTrue(
+        "Country lookup should use the countries_1_title_1__id_1 index",
+        plan.getIndexNames().contains("countries_1_title_1__id_1"));
+    Assert.assertTrue(
+        "Country lookup should be answered from the index. Plan stages: " + plan.getStages(),
+        plan.isCovered());
+    Assert.assertEquals(2, plan.getReturned());
+  }
+
+  @Test
+  public void testMultipleCountriesUseIndex() {
+    QueryPlan plan = new QueryPlan(dao.explainMoviesByCountry("Russia", "Japan"));
+    Assert.assertFalse(
+        "Country lookups should never scan the collection", plan.isCollectionScan());
+    Assert.assertEquals(
+        "Explained query should return the same movies as the DAO query",
+        dao.getMoviesByCountry("Russia", "Japan").size(),
+        plan.getReturned());
+  }
+}
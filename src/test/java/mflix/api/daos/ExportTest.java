@@ -0,0 +1,88 @@
+package mflix.api.daos;
+
+import com.mongodb.client.MongoClient;
+import mflix.config.MongoDBConfiguration;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+@SpringBootTest(classes = {MongoDBConfiguration.class})
+@EnableConfigurationProperties
+@EnableAutoConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+public class ExportTest extends TicketTest {
+
+  private MovieDao dao;
+  @Autowired MongoClient mongoClient;
+
+  @Value("${spring.mongodb.database}")
+  String databaseName;
+
+  private final List<String> genres = Collections.singletonList("Film-Noir");
+
+  @Before
+  public void setup() {
+    this.dao = new MovieDao(mongoClient, databaseName);
+  }
+
+  private List<RawBsonDocument> export(ObjectId afterId, List<String> fields) {
+    List<RawBsonDocument> documents = new ArrayList<>();
+    dao.exportMovies(null, genres, null, afterId, fields, 100, documents::add);
+    return documents;
+  }
+
+  @Test
+  public void testExportMatchesFilter() {
+    List<RawBsonDocument> documents = export(null, null);
+    Assert.assertEquals(
+        "Export should include all matching movies",
+        dao.getGenresSearchCount(0, genres.toArray(new String[0])),
+        documents.size());
+    for (int i = 1; i < documents.size(); i++) {
+      Assert.assertTrue(
+          "Export should be sorted by `_id`",
+          documents.get(i - 1).getObjectId("_id").getValue()
+                  .compareTo(documents.get(i).getObjectId("_id").getValue())
+              < 0);
+    }
+  }
+
+  @Test
+  public void testResumeExport() {
+    List<RawBsonDocument> documents = export(null, null);
+    int half = documents.size() / 2;
+    ObjectId lastExported = documents.get(half - 1).getObjectId("_id").getValue();
+
+    List<RawBsonDocument> resumed = export(lastExported, null);
+    Assert.assertEquals(
+        "Resumed export should continue after the last exported movie",
+        documents.size() - half,
+        resumed.size());
+    Assert.assertEquals(
+        documents.get(half).getObjectId("_id"), resumed.get(0).getObjectId("_id"));
+  }
+
+  @Test
+  public void testExportProjection() {
+    for (RawBsonDocument document : export(null, Arrays.asList("title", "year"))) {
+      Assert.assertTrue(
+          "Only the requested fields and `_id` should be exported",
+          new HashSet<>(Arrays.asList("_id", "title", "year")).containsAll(document.keySet()));
+    }
+  }
+}
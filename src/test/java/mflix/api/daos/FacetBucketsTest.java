@@ -0,0 +1,108 @@
+package mflix.api.daos;
+
+import com.mongodb.client.MongoClient;
+import mflix.api.models.Movie;
+import mflix.config.MongoDBConfiguration;
+import org.bson.Document;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest(classes = {MongoDBConfiguration.class})
+@EnableConfigurationProperties
+@EnableAutoConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+public class FacetBucketsTest extends TicketTest {
+
+  private MovieDao dao;
+  @Autowired MongoClient mongoClient;
+
+  @Value("${spring.mongodb.database}")
+  String databaseName;
+
+  @Before
+  public void setup() {
+    this.dao = new MovieDao(mongoClient, databaseName);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static long bucketsTotal(Document facets, String dimension) {
+    long total = 0;
+    for (Document bucket : (List<Document>) facets.get(dimension)) {
+      total += ((Number) bucket.get("count")).longValue();
+    }
+    return total;
+  }
+
+  @Test
+  public void testBucketsCoverAllMatches() {
+    String[] cast = {"Tom Hanks", "Meg Ryan"};
+    Document result =
+        dao.getMovieFacets(
+            Collections.singletonMap("cast", Arrays.asList(cast)),
+            Arrays.asList(MovieDao.runtimeFacet(), MovieDao.ratingFacet()));
+    Document facets = (Document) result.get("facets");
+    long count = dao.getCastSearchCount(cast);
+
+    Assert.assertEquals(
+        "Facet count should match the cast count", count, (long) result.getLong("count"));
+    Assert.assertEquals(
+        "Runtime buckets should cover all matching movies, not only a page",
+        count,
+        bucketsTotal(facets, "runtime"));
+    Assert.assertEquals(
+        "Rating buckets should cover all matching movies, not only a page",
+        count,
+        bucketsTotal(facets, "rating"));
+  }
+
+  @Test
+  public void testMultipleDimensions() {
+    Map<String, List<String>> filters = new HashMap<>();
+    filters.put("genres", Collections.singletonList("Western"));
+    filters.put("year", Collections.singletonList("1965"));
+    Document result =
+        dao.getMovieFacets(
+            filters,
+            Arrays.asList(
+                FacetDefinition.withTopValues("countries", "countries", 5),
+                FacetDefinition.withAutoBuckets("runtime", "runtime", 3)));
+    Document facets = (Document) result.get("facets");
+
+    Assert.assertTrue(result.getLong("count") > 0);
+    Assert.assertTrue(
+        "Top values facet should have at most 5 values",
+        ((List<?>) facets.get("countries")).size() <= 5);
+    Assert.assertEquals(
+        "Auto buckets should cover all matching movies",
+        (long) result.getLong("count"),
+        bucketsTotal(facets, "runtime"));
+  }
+
+  @Test
+  public void testMovieCardsPage() {
+    List<Movie> page =
+        dao.getMovieCards(
+            Collections.singletonMap("cast", Collections.singletonList("Tom Hanks")), 20, 20);
+    Assert.assertEquals("Check the cast page skip and limit", 20, page.size());
+    Assert.assertNotNull("Movie cards should have the cast", page.get(0).getCast());
+  }
+
+  @Test(expected = IncorrectDaoOperation.class)
+  public void testInvalidYear() {
+    MovieDao.facetFilter(Collections.singletonMap("year", Collections.singletonList("nineties")));
+  }
+}
@@ -0,0 +1,57 @@
+package mflix.api.daos;
+
+import com.mongodb.MongoClientSettings;
+import mflix.config.FacetRegistry;
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+public class FacetDefinitionTest {
+
+  private static BsonDocument firstStage(FacetDefinition definition) {
+    List<? extends Bson> stages = definition.toFacet().getPipeline();
+    return stages
+        .get(0)
+        .toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+  }
+
+  @Test
+  public void testBoundariesFacet() {
+    BsonDocument stage = firstStage(MovieDao.runtimeFacet());
+    Assert.assertTrue(stage.containsKey("$bucket"));
+    Assert.assertEquals("$runtime", stage.getDocument("$bucket").getString("groupBy").getValue());
+    Assert.assertEquals(5, stage.getDocument("$bucket").getArray("boundaries").size());
+    Assert.assertEquals("other", stage.getDocument("$bucket").getString("default").getValue());
+  }
+
+  @Test
+  public void testAutoBucketsFacet() {
+    BsonDocument stage = firstStage(FacetDefinition.withAutoBuckets("year", "year", 5));
+    Assert.assertTrue(stage.containsKey("$bucketAuto"));
+    Assert.assertEquals(5, stage.getDocument("$bucketAuto").getInt32("buckets").getValue());
+  }
+
+  @Test
+  public void testTopValuesFacet() {
+    FacetDefinition definition = FacetDefinition.withTopValues("genres", "genres", 3);
+    Assert.assertTrue(firstStage(definition).containsKey("$unwind"));
+    Assert.assertEquals(3, definition.toFacet().getPipeline().size());
+  }
+
+  @Test(expected = IncorrectDaoOperation.class)
+  public void testMissingField() {
+    new FacetDefinition("genres", null).toFacet();
+  }
+
+  @Test(expected = IncorrectDaoOperation.class)
+  public void testReservedDimensionName() {
+    FacetRegistry registry = new FacetRegistry();
+    registry.setDimensions(
+        Collections.singletonList(FacetDefinition.withTopValues(MovieDao.FACET_COUNT, "genres", 10)));
+    registry.init();
+  }
+}
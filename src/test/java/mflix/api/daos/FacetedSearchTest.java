@@ -2,6 +2,7 @@ package mflix.api.daos;
 
 import com.mongodb.client.MongoClient;
 import mflix.config.MongoDBConfiguration;
+import mflix.api.models.Movie;
 import org.bson.Document;
 import org.junit.Before;
 import org.junit.Test;
@@ -13,8 +14,10 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 
@@ -35,85 +38,71 @@ public class FacetedSearchTest extends TicketTest {
     this.dao = new MovieDao(mongoClient, databaseName);
   }
 
-  @Test
-  public void testRatingRuntimeBuckets() {
-
-    String cast = "Salma Hayek";
-
-    List<Document> moviesInfo = dao.getMoviesCastFaceted(20, 0, cast);
-
-    ArrayList<Document> allMovies = (ArrayList<Document>) moviesInfo.get(0).get("movies");
-    assertEquals(
-        "Check your movies sub-pipeline on getMoviesFaceted() for multiple cast in single cast",
-        20,
-        allMovies.size());
+  private static Map<String, List<String>> castFilter(String... cast) {
+    return Collections.singletonMap("cast", Arrays.asList(cast));
+  }
 
-    ArrayList rating = (ArrayList<Document>) moviesInfo.get(0).get("rating");
-    assertEquals(
-        "Check your $bucket rating sub-pipeline on getMoviesFaceted() for multiple cast in single cast",
-        3,
-        rating.size());
+  private Document facets(Map<String, List<String>> filters) {
+    return dao.getMovieFacets(
+        filters, Arrays.asList(MovieDao.runtimeFacet(), MovieDao.ratingFacet()));
+  }
 
-    ArrayList runtime = (ArrayList<Document>) moviesInfo.get(0).get("runtime");
+  /** Every matching movie falls in one bucket, `other` included, of each dimension. */
+  @SuppressWarnings("unchecked")
+  private static void assertBucketsCoverCount(Document facets, String dimension) {
+    long count = facets.getLong("count");
+    long bucketed = 0;
+    for (Document bucket : (List<Document>) facets.get("facets", Document.class).get(dimension)) {
+      bucketed += ((Number) bucket.get("count")).longValue();
+    }
     assertEquals(
-        "Check your $bucket runtime sub-pipeline on getMoviesFaceted() for multiple cast in single cast",
-        3,
-        runtime.size());
+        "Check your $bucket " + dimension + " sub-pipeline on getMovieFacets()", count, bucketed);
   }
 
   @Test
-  public void testFacetedSearchPaging() {
+  public void testRatingRuntimeBuckets() {
 
-    String cast = "Tom Hanks";
+    Map<String, List<String>> filters = castFilter("Salma Hayek");
 
-    List<Document> moviesInfo = dao.getMoviesCastFaceted(20, 2 * 20, cast);
+    List<Movie> movies = dao.getMovieCards(filters, 20, 0);
+    assertEquals("Check getMovieCards() for single cast", 20, movies.size());
 
-    assertEquals("Should return a list of one faceted document", 1, moviesInfo.size());
+    Document facets = facets(filters);
+    assertBucketsCoverCount(facets, "rating");
+    assertBucketsCoverCount(facets, "runtime");
+  }
 
-    ArrayList movies = (ArrayList<Document>) moviesInfo.get(0).get("movies");
-    assertEquals(
-        "Check your movies sub-pipeline on getMoviesFaceted() for multiple cast in paged results",
-        11,
-        movies.size());
+  @Test
+  public void testFacetedSearchPaging() {
 
-    ArrayList rating = (ArrayList<Document>) moviesInfo.get(0).get("rating");
-    assertEquals(
-        "Check your $bucket rating sub-pipeline on getMoviesFaceted() in multiple cast in paged results",
-        3,
-        rating.size());
+    Map<String, List<String>> filters = castFilter("Tom Hanks");
+
+    List<Movie> movies = dao.getMovieCards(filters, 20, 2 * 20);
+    assertEquals("Check getMovieCards() for paged results", 11, movies.size());
 
-    ArrayList runtime = (ArrayList<Document>) moviesInfo.get(0).get("runtime");
+    Document facets = facets(filters);
     assertEquals(
-        "Check your $bucket runtime sub-pipeline on getMoviesFaceted() in paged results",
-        5,
-        runtime.size());
+        "The count of getMovieFacets() should cover all pages",
+        2 * 20 + 11,
+        facets.getLong("count").longValue());
+    assertBucketsCoverCount(facets, "rating");
+    assertBucketsCoverCount(facets, "runtime");
   }
 
   @Test
   public void testFacetedMultipleCast() {
 
-    String[] cast = {"Brad Pitt", "Meryl Streep"};
+    Map<String, List<String>> filters = castFilter("Brad Pitt", "Meryl Streep");
 
-    List<Document> moviesInfo = dao.getMoviesCastFaceted(20, 4 * 20, cast);
-
-    assertEquals("Should return a list of one faceted document", 1, moviesInfo.size());
-
-    ArrayList movies = (ArrayList<Document>) moviesInfo.get(0).get("movies");
-    assertEquals(
-        "Check your movies sub-pipeline on getMoviesFaceted() in multiple cast for multiple cast",
-        9,
-        movies.size());
-
-    ArrayList rating = (ArrayList<Document>) moviesInfo.get(0).get("rating");
-    assertEquals(
-        "Check your $bucket rating sub-pipeline on getMoviesFaceted() in multiple cast",
-        2,
-        rating.size());
+    List<Movie> movies = dao.getMovieCards(filters, 20, 4 * 20);
+    assertEquals("Check getMovieCards() for multiple cast", 9, movies.size());
 
-    ArrayList runtime = (ArrayList<Document>) moviesInfo.get(0).get("runtime");
+    Document facets = facets(filters);
     assertEquals(
-        "Check your $bucket runtime sub-pipeline on getMoviesFaceted() in multiple cast",
-        3,
-        runtime.size());
+        "The count of getMovieFacets() should cover all pages",
+        4 * 20 + 9,
+        facets.getLong("count").longValue());
+    assertBucketsCoverCount(facets, "rating");
+    assertBucketsCoverCount(facets, "runtime");
   }
 }
@@ -0,0 +1,94 @@
+package mflix.api.daos;
+
+import com.mongodb.client.MongoClient;
+import mflix.config.MongoDBConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest(classes = {MongoDBConfiguration.class})
+@EnableConfigurationProperties
+@EnableAutoConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+public class IndexManagerTest extends TicketTest {
+
+  private IndexManager indexManager;
+  @Autowired MongoClient mongoClient;
+
+  @Value("${spring.mongodb.database}")
+  String databaseName;
+
+  @Before
+  public void setup() {
+    List<AbstractMFlixDao> daos =
+        Arrays.asList(
+            new MovieDao(mongoClient, databaseName),
+            new CommentDao(mongoClient, databaseName),
+            new UserDao(mongoClient, databaseName));
+    this.indexManager = new IndexManager(mongoClient, databaseName, daos);
+  }
+
+  @Test
+  public void testDeclaredIndexes() {
+    Map<String, ?> declared = indexManager.getDeclaredIndexes();
+    for (String collection : Arrays.asList("movies", "comments", "users", "sessions")) {
+      Assert.assertTrue(
+          "Indexes of `" + collection + "` collection should be declared",
+          declared.containsKey(collection));
+    }
+  }
+
+  @Test
+  public void testCreatedIndexesAreReported() {
+    Map<String, String> failures = indexManager.createIndexes();
+    Map<String, Map<String, Object>> report = indexManager.getIndexReport();
+
+    for (Map.Entry<String, Map<String, Object>> collection : report.entrySet()) {
+      List<?> missing = (List<?>) collection.getValue().get("missing");
+      Assert.assertNotNull(
+          "$indexStats should be readable for `" + collection.getKey() + "` collection",
+          missing);
+      Assert.assertEquals(
+          "Only indexes that failed to be created can be missing. Failures: " + failures,
+          failures.keySet().stream().filter(k -> k.startsWith(collection.getKey() + " ")).count(),
+          missing.size());
+    }
+  }
+
+  @Test
+  public void testTextIndexMatchesDataset() {
+    Map<String, String> failures = indexManager.createIndexes();
+    Assert.assertFalse(
+        "The declared text index should match the one of the dataset. Failures: " + failures,
+        failures.keySet().stream().anyMatch(k -> k.startsWith("movies ")));
+
+    List<?> missing = (List<?>) indexManager.getIndexReport().get("movies").get("missing");
+    Assert.assertTrue("All `movies` indexes should exist: " + missing, missing.isEmpty());
+  }
+
+  @Test
+  public void testReplacedIndexesAreDropped() {
+    Map<String, String> failures = indexManager.createIndexes();
+    Map<String, Map<String, Object>> report = indexManager.getIndexReport();
+    for (Map.Entry<String, List<String>> replaced :
+        indexManager.getReplacedIndexes().entrySet()) {
+      List<?> undeclared = (List<?>) report.get(replaced.getKey()).get("undeclared");
+      for (String name : replaced.getValue()) {
+        Assert.assertFalse(
+            "Replaced index " + name + " should be dropped. Failures: " + failures,
+            undeclared.contains(name));
+      }
+    }
+  }
+}
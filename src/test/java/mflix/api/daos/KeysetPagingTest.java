@@ -0,0 +1,129 @@
+package mflix.api.daos;
+
+import com.mongodb.client.MongoClient;
+import mflix.api.models.Movie;
+import mflix.config.MongoDBConfiguration;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+@SpringBootTest(classes = {MongoDBConfiguration.class})
+@EnableConfigurationProperties
+@EnableAutoConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+public class KeysetPagingTest extends TicketTest {
+
+  private MovieDao dao;
+  @Autowired MongoClient mongoClient;
+
+  @Value("${spring.mongodb.database}")
+  String databaseName;
+
+  @Before
+  public void setup() {
+    this.dao = new MovieDao(mongoClient, databaseName);
+  }
+
+  @Test
+  public void testTokenRoundTrip() {
+    ObjectId id = new ObjectId();
+    PageToken token = PageToken.decode(new PageToken(1234, id).encode());
+    Assert.assertEquals("Sort value should survive encoding", 1234, token.getSortValue());
+    Assert.assertEquals("`_id` should survive encoding", id, token.getId());
+  }
+
+  @Test(expected = IncorrectDaoOperation.class)
+  public void testInvalidToken() {
+    PageToken.decode("not a token");
+  }
+
+  @Test(expected = IncorrectDaoOperation.class)
+  public void testOperatorToken() {
+    String json = "{\"v\": {\"$ne\": null}, \"i\": {\"$oid\": \"" + new ObjectId() + "\"}}";
+    PageToken.decode(
+        Base64.getUrlEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testKeysetPagesMatchSkipPages() {
+    String after = null;
+    for (int page = 0; page < 3; page++) {
+      List<Document> skipPage = dao.getMovies(20, page * 20);
+      List<Document> seekPage = dao.getMovies(20, after);
+      Assert.assertEquals("Page sizes should match", skipPage.size(), seekPage.size());
+      for (int i = 0; i < skipPage.size(); i++) {
+        Assert.assertEquals(
+            "Keyset page " + page + " does not match skip page. Check the seek filter",
+            skipPage.get(i).getObjectId("_id"),
+            seekPage.get(i).getObjectId("_id"));
+      }
+      after = PageToken.next(seekPage, 20, MovieDao.DEFAULT_SORT_KEY);
+      Assert.assertNotNull("Full pages should produce a next page token", after);
+    }
+  }
+
+  @Test
+  public void testKeysetPagingByCast() {
+    String sortKey = MovieDao.DEFAULT_SORT_KEY;
+    String cast = "Tom Hanks";
+    int total = 0;
+    String after = null;
+    do {
+      List<Document> page = dao.getMoviesByCast(sortKey, 20, after, cast);
+      total += page.size();
+      after = PageToken.next(page, 20, sortKey);
+    } while (after != null);
+
+    Assert.assertEquals("Total document count does not match", 51, total);
+  }
+
+  @Test
+  public void testKeysetPagingByText() {
+    String keywords = "bank robbery";
+    List<Document> firstPage = dao.getMoviesByText(20, null, keywords);
+    List<Document> skipPage = dao.getMoviesByText(20, 20, keywords);
+    List<Document> seekPage =
+        dao.getMoviesByText(20, PageToken.next(firstPage, 20, "score"), keywords);
+
+    Assert.assertEquals("Page sizes should match", skipPage.size(), seekPage.size());
+    for (int i = 0; i < skipPage.size(); i++) {
+      Assert.assertEquals(
+          "Text search keyset page does not match skip page. Check the textScore seek filter",
+          skipPage.get(i).getObjectId("_id"),
+          seekPage.get(i).getObjectId("_id"));
+    }
+  }
+
+  @Test
+  public void testStreamedPageMatchesListedPage() {
+    List<Movie> listed = dao.getMovieModels(20, 0, null);
+    List<Movie> streamed = new ArrayList<>();
+    dao.streamMovieModels(20, 0, null, streamed::add);
+
+    Assert.assertEquals("Streamed page size should match", listed.size(), streamed.size());
+    for (int i = 0; i < listed.size(); i++) {
+      Assert.assertEquals(
+          "Streamed movies should come in the same order as listed movies",
+          listed.get(i).getId(),
+          streamed.get(i).getId());
+    }
+    Assert.assertEquals(
+        "Streamed page should end with the same page token",
+        PageToken.nextMovies(listed, 20),
+        PageToken.fromMovie(streamed.get(streamed.size() - 1)).encode());
+  }
+}
@@ -0,0 +1,136 @@
+package mflix.api.daos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mflix.api.models.Movie;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+public class MovieCodecTest {
+
+  private final MovieCodec codec = new MovieCodec();
+
+  private final DocumentCodec documentCodec = new DocumentCodec();
+
+  private static Document movieDocument() {
+    return new Document("_id", new ObjectId())
+        .append("title", "The Great Train Robbery")
+        .append("year", 1903)
+        .append("runtime", 11)
+        .append("cast", Arrays.asList("A.C. Abadie", "Gilbert M. 'Broncho Billy' Anderson"))
+        .append("plot", "A group of bandits stage a brazen train hold-up.")
+        .append("fullplot", "Among the earliest existing films in American cinema.")
+        .append("lastupdated", "2015-08-13 00:27:59.177000000")
+        .append("type", "movie")
+        .append("directors", Arrays.asList("Edwin S. Porter"))
+        .append("writers", null)
+        .append("imdb", new Document("rating", 7.4).append("votes", 9847).append("id", 439))
+        .append("countries", Arrays.asList("USA"))
+        .append("genres", Arrays.asList("Short", "Western"))
+        .append(
+            "tomatoes",
+            new Document("viewer", new Document("rating", 3.7).append("numReviews", 2559))
+                .append("fresh", 6)
+                .append("lastupdated", new Date(1441987200000L)))
+        .append("poster", "http://example.com/poster.jpg");
+  }
+
+  private RawBsonDocument raw(Document document) {
+    return new RawBsonDocument(document, documentCodec);
+  }
+
+  @Test
+  public void testDecodeMatchesMapper() throws Exception {
+    Document document = movieDocument();
+    // the mapper does not read the year
+    document.remove("year");
+    RawBsonDocument bson = raw(document);
+    ObjectMapper json = new ObjectMapper();
+
+    Movie mapped = MovieDocumentMapper.mapToMovie(bson.decode(documentCodec));
+    Movie decoded = bson.decode(codec);
+
+    Assert.assertEquals(
+        "MovieCodec should produce the same Movie as MovieDocumentMapper",
+        json.writeValueAsString(mapped),
+        json.writeValueAsString(decoded));
+  }
+
+  @Test
+  public void testMixedRatingTypes() {
+    Document document = movieDocument();
+    document.put("title", 1984);
+    document.put("imdb", new Document("rating", "").append("votes", "1200").append("id", 5));
+
+    Movie movie = raw(document).decode(codec);
+    Assert.assertEquals("1984", movie.getTitle());
+    Assert.assertEquals(0, movie.getImdb().getRating(), 0);
+    Assert.assertEquals(1200, movie.getImdb().getVotes());
+    Assert.assertEquals(2559, (int) movie.getTomatoes().getViewer().getNumReviews());
+  }
+
+  @Test
+  public void testDifferencesFromMapper() {
+    Document document = movieDocument();
+    Movie movie = raw(document).decode(codec);
+    Assert.assertEquals(1903, movie.getYear());
+    Assert.assertEquals(0, MovieDocumentMapper.mapToMovie(document).getYear());
+
+    document.put("title", 1984);
+    Assert.assertEquals("1984", raw(document).decode(codec).getTitle());
+    // the mapper formats numbers in the default locale, e.g. 1,984
+    Assert.assertEquals(
+        MessageFormat.format("{0}", 1984), MovieDocumentMapper.mapToMovie(document).getTitle());
+
+    document.remove("title");
+    Assert.assertNull(raw(document).decode(codec).getTitle());
+    Assert.assertEquals("null", MovieDocumentMapper.mapToMovie(document).getTitle());
+  }
+
+  @Test
+  public void testMissingSubDocuments() {
+    Document document = movieDocument();
+    document.remove("tomatoes");
+    document.put("imdb", null);
+
+    Movie movie = raw(document).decode(codec);
+    Assert.assertNull(movie.getTomatoes());
+    Assert.assertNull(movie.getImdb());
+    Assert.assertNull(movie.getWriters());
+  }
+
+  @Test
+  public void testEncodeRoundTrip() throws Exception {
+    Movie movie = raw(movieDocument()).decode(codec);
+    ObjectMapper json = new ObjectMapper();
+
+    RawBsonDocument encoded = new RawBsonDocument(movie, codec);
+
+    Assert.assertEquals(
+        "Decoding an encoded Movie should return the same Movie",
+        json.writeValueAsString(movie),
+        json.writeValueAsString(encoded.decode(codec)));
+  }
+
+  @Test
+  public void testMissingNumReviewsPageToken() {
+    Document document = movieDocument();
+    ((Document) document.get("tomatoes", Document.class).get("viewer")).remove("numReviews");
+
+    Movie movie = raw(document).decode(codec);
+    Assert.assertNull(movie.getTomatoes().getViewer().getNumReviews());
+
+    Assert.assertEquals(
+        "Movie and Document pages should continue with the same token",
+        PageToken.next(Collections.singletonList(document), 1, MovieDao.DEFAULT_SORT_KEY),
+        PageToken.nextMovies(Collections.singletonList(movie), 1));
+  }
+}
@@ -0,0 +1,108 @@
+package mflix.api.daos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mflix.api.models.Movie;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MovieDocumentMapperTest {
+
+  private static final int THREADS = 16;
+
+  private static final int DOCUMENTS_PER_THREAD = 1000;
+
+  private static Document movieDocument(int second) {
+    return new Document("_id", new ObjectId())
+        .append("title", "Movie " + second)
+        .append("lastupdated", String.format("2015-08-26 00:03:%02d.133000000", second))
+        .append(
+            "tomatoes",
+            new Document("lastupdated", String.format("2015-09-12 17:48:%02d", second))
+                .append("viewer", new Document("numReviews", 10).append("rating", 3.5)))
+        .append("imdb", new Document("id", 1).append("rating", "").append("votes", 5));
+  }
+
+  private static Date expectedDate(String dateTime) {
+    return Date.from(LocalDateTime.parse(dateTime).atZone(ZoneId.systemDefault()).toInstant());
+  }
+
+  @Test
+  public void testParseDates() {
+    Movie movie = MovieDocumentMapper.mapToMovie(movieDocument(50));
+    Assert.assertEquals(
+        "Trailing fraction of seconds should be ignored",
+        expectedDate("2015-08-26T00:03:50"),
+        movie.getLastUpdated());
+    Assert.assertEquals(
+        expectedDate("2015-09-12T17:48:50"), movie.getTomatoes().getLastUpdated());
+  }
+
+  @Test
+  public void testInvalidDate() {
+    Movie movie =
+        MovieDocumentMapper.mapToMovie(movieDocument(1).append("lastupdated", "not a date"));
+    Assert.assertNull(movie.getLastUpdated());
+    Assert.assertEquals("Movie 1", movie.getTitle());
+  }
+
+  @Test
+  public void testUnloadedCommentsCount() throws Exception {
+    Movie movie = MovieDocumentMapper.mapToMovie(movieDocument(1));
+    Assert.assertNull(movie.getCommentsCount());
+    Assert.assertFalse(
+        "Listings should not report a comments count that was never loaded",
+        new ObjectMapper().writeValueAsString(movie).contains("comments_count"));
+
+    movie = MovieDocumentMapper.mapToMovie(movieDocument(1).append("comments_count", 0));
+    Assert.assertEquals(Integer.valueOf(0), movie.getCommentsCount());
+  }
+
+  @Test
+  public void testFormatDate() {
+    Date date = expectedDate("2015-08-26T00:03:50");
+    Assert.assertEquals("2015-08-26 00:03:50", MovieDocumentMapper.formatDate(date));
+    Assert.assertEquals(date, MovieDocumentMapper.parseDate(MovieDocumentMapper.formatDate(date)));
+  }
+
+  @Test
+  public void testConcurrentMapping() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      final int second = t;
+      Callable<Integer> task =
+          () -> {
+            Date expected = expectedDate(String.format("2015-08-26T00:03:%02d", second));
+            int mismatches = 0;
+            for (int i = 0; i < DOCUMENTS_PER_THREAD; i++) {
+              Movie movie = MovieDocumentMapper.mapToMovie(movieDocument(second));
+              if (!expected.equals(movie.getLastUpdated())) {
+                mismatches++;
+              }
+            }
+            return mismatches;
+          };
+      results.add(executor.submit(task));
+    }
+
+    int mismatches = 0;
+    for (Future<Integer> result : results) {
+      mismatches += result.get();
+    }
+    executor.shutdown();
+
+    Assert.assertEquals("Dates should be parsed consistently by all threads", 0, mismatches);
+  }
+}
@@ -0,0 +1,159 @@
+package mflix.api.daos;
+
+import com.mongodb.MongoClientSettings;
+import mflix.api.models.Movie;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class MovieProjectionTest {
+
+  private static final int PAGE_SIZE = 20;
+
+  private final DocumentCodec documentCodec = new DocumentCodec();
+
+  private static String text(String sentence, int times) {
+    return String.join(" ", Collections.nCopies(times, sentence));
+  }
+
+  /** Builds a movie document with the fields and typical field sizes of the sample dataset. */
+  private static Document movieDocument(int i) {
+    return new Document("_id", new ObjectId())
+        .append("title", "Movie " + i)
+        .append("year", 1990 + i)
+        .append("runtime", 100 + i)
+        .append("rated", "PG-13")
+        .append(
+            "cast",
+            Arrays.asList("Tom Hanks", "Meg Ryan", "Bill Pullman", "Rosie O'Donnell"))
+        .append("plot", text("A widowed architect finds love on the radio.", 2))
+        .append("fullplot", text("A long description of everything that happens in the movie.", 12))
+        .append("lastupdated", "2015-08-13 00:27:59.177000000")
+        .append("type", "movie")
+        .append("directors", Collections.singletonList("Nora Ephron"))
+        .append(
+            "writers",
+            Arrays.asList("Jeff Arch (story)", "Nora Ephron (screenplay)", "David S. Ward"))
+        .append(
+            "awards",
+            new Document("wins", 10).append("nominations", 12).append("text", "10 wins"))
+        .append("imdb", new Document("rating", 6.8).append("votes", 125000).append("id", 108160))
+        .append("countries", Collections.singletonList("USA"))
+        .append("genres", Arrays.asList("Comedy", "Drama", "Romance"))
+        .append("languages", Collections.singletonList("English"))
+        .append(
+            "tomatoes",
+            new Document("viewer", new Document("rating", 3.4).append("numReviews", 200000 - i))
+                .append("critic", new Document("rating", 6.9).append("numReviews", 66))
+                .append("consensus", text("Sweet and charming.", 3))
+                .append("lastupdated", new Date()))
+        .append("poster", "https://m.media-amazon.com/images/M/poster" + i + ".jpg");
+  }
+
+  /** Applies an inclusion projection the way the server does, for top level and dotted paths. */
+  private static Document project(Document document, MovieProjection profile) {
+    if (profile.getFields().isEmpty()) {
+      return document;
+    }
+    Document projected = new Document("_id", document.get("_id"));
+    for (String path : profile.getFields()) {
+      String[] keys = path.split("\\.");
+      Object value = document.get(keys[0]);
+      if (value == null) {
+        continue;
+      }
+      if (keys.length == 1) {
+        projected.put(keys[0], value);
+      } else {
+        Object nested = ((Document) value).get(keys[1]);
+        if (nested != null) {
+          projected.put(keys[0], new Document(keys[1], nested));
+        }
+      }
+    }
+    return projected;
+  }
+
+  private List<RawBsonDocument> page(MovieProjection profile) {
+    List<RawBsonDocument> page = new ArrayList<>();
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      page.add(new RawBsonDocument(project(movieDocument(i), profile), documentCodec));
+    }
+    return page;
+  }
+
+  private static long bytes(List<RawBsonDocument> page) {
+    long bytes = 0;
+    for (RawBsonDocument document : page) {
+      bytes += document.getByteBuffer().remaining();
+    }
+    return bytes;
+  }
+
+  @Test
+  public void testListProfileKeepsPageTokenFields() {
+    Movie movie =
+        new RawBsonDocument(project(movieDocument(1), MovieProjection.LIST), documentCodec)
+            .decode(new MovieCodec());
+    Assert.assertEquals("Movie 1", movie.getTitle());
+    Assert.assertEquals(199999, (int) movie.getTomatoes().getViewer().getNumReviews());
+    Assert.assertNull("Listings should not fetch the full plot", movie.getFullPlot());
+    Assert.assertNotNull(
+        "Listing movies should produce page tokens",
+        PageToken.nextMovies(Collections.singletonList(movie), 1));
+  }
+
+  @Test
+  public void testListingProjection() {
+    BsonDocument projection =
+        MovieProjection.LIST
+            .projection()
+            .toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    Assert.assertEquals(
+        "Listing queries should only project the LIST profile fields",
+        new HashSet<>(MovieProjection.LIST.getFields()),
+        projection.keySet());
+
+    Set<String> listFields = new HashSet<>(Arrays.asList("_id", "tomatoes"));
+    listFields.addAll(MovieProjection.LIST.getFields());
+    Document listed = project(movieDocument(1), MovieProjection.LIST);
+    Assert.assertTrue(
+        "Listing documents should only have the LIST profile fields. Check the projection",
+        listFields.containsAll(listed.keySet()));
+    Assert.assertFalse(
+        "Listing documents should not have the full plot", listed.containsKey("fullplot"));
+  }
+
+  @Test
+  public void testCardProfileExtendsListProfile() {
+    Assert.assertTrue(
+        MovieProjection.CARD.getFields().containsAll(MovieProjection.LIST.getFields()));
+    Assert.assertNull(
+        "Detail profile should fetch whole documents", MovieProjection.DETAIL.projection());
+  }
+
+  @Test
+  public void testProjectedPageSize() {
+    long detailBytes = bytes(page(MovieProjection.DETAIL));
+    for (MovieProjection profile : MovieProjection.values()) {
+      Assert.assertTrue(
+          "Projected pages should not be larger than whole documents",
+          bytes(page(profile)) <= detailBytes);
+    }
+    Assert.assertTrue(
+        "Listing pages should be smaller than whole documents",
+        bytes(page(MovieProjection.LIST)) < detailBytes);
+  }
+}
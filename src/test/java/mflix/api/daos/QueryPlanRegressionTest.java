@@ -0,0 +1,127 @@
+package mflix.api.daos;
+
+import com.mongodb.client.MongoClient;
+import mflix.config.MongoDBConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest(classes = {MongoDBConfiguration.class})
+@EnableConfigurationProperties
+@EnableAutoConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+public class QueryPlanRegressionTest extends TicketTest {
+
+  private List<AbstractMFlixDao> daos;
+  @Autowired MongoClient mongoClient;
+
+  @Value("${spring.mongodb.database}")
+  String databaseName;
+
+  @Before
+  public void setup() {
+    this.daos =
+        Arrays.asList(
+            new MovieDao(mongoClient, databaseName),
+            new CommentDao(mongoClient, databaseName),
+            new UserDao(mongoClient, databaseName));
+    new IndexManager(mongoClient, databaseName, daos).createIndexes();
+  }
+
+  private QueryPlan plan(String query) {
+    for (AbstractMFlixDao dao : daos) {
+      Map<String, QueryPlan> plans = dao.explainQueries();
+      if (plans.containsKey(query)) {
+        return plans.get(query);
+      }
+    }
+    throw new AssertionError("No DAO explains the `" + query + "` query");
+  }
+
+  private void assertIndexed(String query) {
+    QueryPlan plan = plan(query);
+    Assert.assertFalse(
+        "`" + query + "` should not scan the collection. Plan stages: " + plan.getStages(),
+        plan.isCollectionScan());
+    Assert.assertFalse(
+        "`" + query + "` should use an index. Check the declared indexes",
+        plan.getIndexNames().isEmpty());
+  }
+
+  @Test
+  public void testMoviesListUsesSortIndex() {
+    assertIndexed("movies.list");
+    Assert.assertFalse(
+        "Listing should read movies in index order, without sorting them in memory",
+        plan("movies.list").getStages().contains("SORT"));
+  }
+
+  @Test
+  public void testKeysetPagesUseSortIndex() {
+    for (String query : Arrays.asList("movies.list.after", "movies.cast.after")) {
+      assertIndexed(query);
+      Assert.assertFalse(
+          "`" + query + "` should read the index in sort order, without a blocking SORT. Stages: "
+              + plan(query).getStages(),
+          plan(query).getStages().contains("SORT"));
+    }
+  }
+
+  @Test
+  public void testCastAndGenresUseIndex() {
+    assertIndexed("movies.cast");
+    assertIndexed("movies.genres");
+  }
+
+  @Test
+  public void testTextSearchUsesIndex() {
+    assertIndexed("movies.text");
+  }
+
+  @Test
+  public void testCountriesLookupIsCovered() {
+    Assert.assertTrue(plan("movies.countries").isCovered());
+  }
+
+  @Test
+  public void testCommentsByMovieUseIndex() {
+    assertIndexed("comments.by_movie");
+    Assert.assertFalse(plan("comments.by_movie").getStages().contains("SORT"));
+  }
+
+  @Test
+  public void testCommentReportUsesIndex() {
+    assertIndexed("comments.report");
+    Assert.assertFalse(plan("comments.report").getStages().contains("SORT"));
+  }
+
+  @Test
+  public void testUsersAndSessionsUseIndex() {
+    assertIndexed("users.by_email");
+    assertIndexed("sessions.by_user_id");
+  }
+
+  @Test
+  public void testDocsExaminedRatio() {
+    for (AbstractMFlixDao dao : daos) {
+      for (Map.Entry<String, QueryPlan> plan : dao.explainQueries().entrySet()) {
+        if (plan.getValue().getReturned() > 0 && !"movies.text".equals(plan.getKey())) {
+          Assert.assertTrue(
+              "`" + plan.getKey() + "` examines too many documents per returned document",
+              plan.getValue().getDocsExaminedRatio() <= 1.0);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package mflix.api.daos;
+
+import org.bson.Document;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class QueryPlanTest {
+
+  private static Document explain(Document winningPlan, int docsExamined, int returned) {
+    return new Document("queryPlanner", new Document("winningPlan", winningPlan))
+        .append(
+            "executionStats",
+            new Document("totalDocsExamined", docsExamined)
+                .append("totalKeysExamined", returned)
+                .append("nReturned", returned));
+  }
+
+  private static Document indexScan(String indexName) {
+    return new Document("stage", "IXSCAN").append("indexName", indexName);
+  }
+
+  @Test
+  public void testCoveredPlan() {
+    QueryPlan plan =
+        new QueryPlan(
+            explain(
+                new Document("stage", "PROJECTION")
+                    .append("inputStage", indexScan("countries_1_title_1__id_1")),
+                0,
+                2));
+
+    Assert.assertEquals(Arrays.asList("PROJECTION", "IXSCAN"), plan.getStages());
+    Assert.assertTrue(plan.isCovered());
+    Assert.assertFalse(plan.isCollectionScan());
+  }
+
+  @Test
+  public void testFetchPlan() {
+    QueryPlan plan =
+        new QueryPlan(
+            explain(
+                new Document("stage", "FETCH").append("inputStage", indexScan("cast_1")), 10, 5));
+
+    Assert.assertFalse("Fetching plans are not covered", plan.isCovered());
+    Assert.assertEquals(2.0, plan.getDocsExaminedRatio(), 0);
+  }
+
+  @Test
+  public void testCollectionScan() {
+    QueryPlan plan =
+        new QueryPlan(
+            explain(
+                new Document("stage", "OR")
+                    .append(
+                        "inputStages",
+                        Arrays.asList(new Document("stage", "COLLSCAN"), indexScan("_id_"))),
+                23000,
+                1));
+
+    Assert.assertTrue(plan.isCollectionScan());
+    Assert.assertEquals(Arrays.asList("_id_"), plan.getIndexNames());
+    Assert.assertEquals(23000.0, plan.getDocsExaminedRatio(), 0);
+  }
+}
@@ -1,8 +1,13 @@
 package mflix.api.daos;
 
 import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import mflix.api.models.Comment;
 import mflix.api.models.Critic;
 import mflix.config.MongoDBConfiguration;
+import org.bson.types.ObjectId;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -14,6 +19,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.Date;
 import java.util.List;
 
 @SpringBootTest(classes = {MongoDBConfiguration.class})
@@ -54,4 +60,47 @@ public class UserReportTest extends TicketTest {
         expectedNumComments,
         mostActive.get(0).getNumComments());
   }
+
+  @Test
+  public void testCountersFollowComments() {
+    String email = "roger_ashton-griffiths@gameofthron.es";
+    int before = this.dao.mostActiveCommenters().get(0).getNumComments();
+
+    Comment comment = new Comment();
+    comment.setId(new ObjectId().toHexString());
+    comment.setEmail(email);
+    comment.setName("Roger Ashton-Griffiths");
+    comment.setText("some text");
+    comment.setMovieId("573a1398f29313caabce9682");
+    comment.setDate(new Date());
+    this.dao.addComment(comment);
+    Assert.assertEquals(
+        "Adding a comment should increment the commenter count",
+        before + 1,
+        this.dao.mostActiveCommenters().get(0).getNumComments());
+
+    Assert.assertTrue(this.dao.deleteComment(comment.getId(), email));
+    Assert.assertEquals(
+        "Deleting a comment should decrement the commenter count",
+        before,
+        this.dao.mostActiveCommenters().get(0).getNumComments());
+  }
+
+  @Test
+  public void testReconcileCommenterCounts() {
+    MongoDatabase db = mongoClient.getDatabase(databaseName);
+    String email = this.dao.mostActiveCommenters().get(0).getId();
+    long expected =
+        db.getCollection(CommentDao.COMMENT_COLLECTION).countDocuments(Filters.eq("email", email));
+
+    // simulate the drift of comments written outside of the DAO
+    db.getCollection(CommentDao.COMMENTER_COUNTS_COLLECTION)
+        .updateOne(Filters.eq("_id", email), Updates.inc("count", 1000));
+    Assert.assertTrue(this.dao.reconcileCommenterCounts() > 0);
+
+    Critic top = this.dao.mostActiveCommenters().get(0);
+    Assert.assertEquals(email, top.getId());
+    Assert.assertEquals(
+        "Reconciled counts should match the comments", expected, top.getNumComments());
+  }
 }
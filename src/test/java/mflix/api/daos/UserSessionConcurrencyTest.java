@@ -0,0 +1,93 @@
+package mflix.api.daos;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import mflix.api.models.User;
+import mflix.config.MongoDBConfiguration;
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SpringBootTest(classes = {MongoDBConfiguration.class})
+@EnableConfigurationProperties
+@EnableAutoConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+public class UserSessionConcurrencyTest extends TicketTest {
+
+  private static final int LOGINS = 16;
+
+  private static final String EMAIL = "concurrent@logins.com";
+
+  private UserDao dao;
+
+  @Autowired MongoClient mongoClient;
+
+  @Value("${spring.mongodb.database}")
+  String databaseName;
+
+  @Before
+  public void setUp() {
+    this.dao = new UserDao(mongoClient, databaseName);
+    dao.createIndexes();
+    sessions().deleteMany(new Document("user_id", EMAIL));
+    User user = new User();
+    user.setEmail(EMAIL);
+    user.setName("Concurrent Logins");
+    user.setHashedpw("somehashedpw");
+    dao.addUser(user);
+  }
+
+  @After
+  public void tearDown() {
+    sessions().deleteMany(new Document("user_id", EMAIL));
+    mongoClient.getDatabase(databaseName).getCollection("users").deleteMany(
+        new Document("email", EMAIL));
+  }
+
+  private MongoCollection<Document> sessions() {
+    return mongoClient.getDatabase(databaseName).getCollection("sessions");
+  }
+
+  @Test
+  public void testParallelLoginsCreateOneSession() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(LOGINS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> logins = new ArrayList<>();
+    for (int i = 0; i < LOGINS; i++) {
+      String jwt = "jwt" + i;
+      Callable<Boolean> login =
+          () -> {
+            start.await();
+            return dao.createUserSession(EMAIL, jwt);
+          };
+      logins.add(executor.submit(login));
+    }
+    start.countDown();
+    for (Future<Boolean> login : logins) {
+      Assert.assertTrue("Every parallel login should succeed", login.get());
+    }
+    executor.shutdown();
+
+    Assert.assertEquals(
+        "Parallel logins should not create duplicate sessions",
+        1,
+        sessions().countDocuments(new Document("user_id", EMAIL)));
+  }
+}
@@ -18,6 +18,9 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.Assert.*;
 
 @SpringBootTest(classes = {MongoDBConfiguration.class})
@@ -55,6 +58,7 @@ public class UserTest extends TicketTest {
   public void tearDownClass() {
     MongoDatabase db = mongoClient.getDatabase("mflix");
     db.getCollection("users").deleteMany(new Document("email", email));
+    db.getCollection("sessions").deleteMany(new Document("user_id", email));
     db.getCollection("users").deleteMany(new Document("email", "log@out.com"));
     db.getCollection("sessions").deleteMany(new Document("user_id", "log@out" +
             ".com"));
@@ -116,4 +120,77 @@ public class UserTest extends TicketTest {
         "User data should not be found after user been deleted. Make sure you delete data from users collection",
         dao.getUser(testUser.getEmail()));
   }
+
+  @SuppressWarnings("unchecked")
+  private long cacheStat(String cache, String counter) {
+    return (long) ((Map<String, Object>) dao.getCacheStats().get(cache)).get(counter);
+  }
+
+  @Test
+  public void testUserCache() {
+    dao.addUser(testUser);
+    dao.getUser(email);
+    dao.getUser(email);
+    assertEquals("Second user lookup should be cached", 1L, cacheStat("users", "hits"));
+
+    Map<String, String> preferences = new HashMap<>();
+    preferences.put("favorite_cast", "Emma Watson");
+    assertTrue(dao.updateUserPreferences(email, preferences));
+    assertEquals(
+        "Updated preferences should not be served from the cache",
+        "Emma Watson",
+        dao.getUser(email).getPreferences().get("favorite_cast"));
+  }
+
+  @Test
+  public void testCachedUserIsCopied() {
+    dao.addUser(testUser);
+    User user = dao.getUser(email);
+    user.setHashedpw("changedhashedpw");
+    user.setPreferences(new HashMap<>());
+
+    User cached = dao.getUser(email);
+    assertEquals("Cached users should not be shared", "somehashedpw", cached.getHashedpw());
+    assertNull(cached.getPreferences());
+    assertEquals(1L, cacheStat("users", "hits"));
+  }
+
+  @Test
+  public void testInvalidateChangedUser() {
+    dao.addUser(testUser);
+    User user = dao.getUser(email);
+    assertNotNull("Loaded users should have their `_id`", user.getOid());
+
+    mongoClient
+        .getDatabase("mflix")
+        .getCollection("users")
+        .updateOne(
+            new Document("email", email), new Document("$set", new Document("name", "Hermione")));
+    assertEquals("Hermione Granger", dao.getUser(email).getName());
+
+    dao.invalidateUser(user.getOid());
+    assertEquals(
+        "A change event of the user should drop its cached entry",
+        "Hermione",
+        dao.getUser(email).getName());
+  }
+
+  @Test
+  public void testLoginReplacesSession() {
+    dao.addUser(testUser);
+    assertTrue(dao.createUserSession(email, jwt));
+    assertTrue(dao.createUserSession(email, "othermagicjwt"));
+
+    assertEquals("othermagicjwt", dao.getUserSession(email).getJwt());
+    assertEquals(
+        "A user should have a single session",
+        1,
+        mongoClient
+            .getDatabase("mflix")
+            .getCollection("sessions")
+            .countDocuments(new Document("user_id", email)));
+
+    assertTrue(dao.deleteUserSessions(email));
+    assertNull(dao.getUserSession(email));
+  }
 }
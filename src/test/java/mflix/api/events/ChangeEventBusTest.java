@@ -0,0 +1,47 @@
+package mflix.api.events;
+
+import org.bson.BsonObjectId;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ChangeEventBusTest {
+
+  @Test
+  public void testDeliversByCollection() {
+    ChangeEventBus bus = new ChangeEventBus();
+    List<ChangeEvent> movies = new ArrayList<>();
+    List<ChangeEvent> users = new ArrayList<>();
+    bus.subscribe("movies", movies::add);
+    bus.subscribe("users", users::add);
+
+    bus.publish(new ChangeEvent("movies", "update", new BsonObjectId(new ObjectId())));
+    bus.publish(ChangeEvent.reset("movies"));
+
+    Assert.assertEquals(2, movies.size());
+    Assert.assertFalse(movies.get(0).isReset());
+    Assert.assertTrue(movies.get(1).isReset());
+    Assert.assertTrue("Events should only reach their collection subscribers", users.isEmpty());
+    Assert.assertEquals(2L, bus.stats().get("published"));
+  }
+
+  @Test
+  public void testFailingSubscriber() {
+    ChangeEventBus bus = new ChangeEventBus();
+    List<ChangeEvent> received = new ArrayList<>();
+    bus.subscribe(
+        "comments",
+        event -> {
+          throw new IllegalStateException("failed");
+        });
+    bus.subscribe("comments", received::add);
+
+    bus.publish(new ChangeEvent("comments", "insert", new BsonObjectId(new ObjectId())));
+
+    Assert.assertEquals("Other subscribers should still get the event", 1, received.size());
+    Assert.assertEquals(1L, bus.stats().get("failures"));
+  }
+}
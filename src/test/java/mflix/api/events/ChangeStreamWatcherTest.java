@@ -0,0 +1,116 @@
+package mflix.api.events;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import mflix.api.daos.TicketTest;
+import mflix.config.MongoDBConfiguration;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest(classes = {MongoDBConfiguration.class})
+@EnableConfigurationProperties
+@EnableAutoConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+public class ChangeStreamWatcherTest extends TicketTest {
+
+  private static final String CONSUMER = "change-stream-watcher-test";
+
+  @Autowired MongoClient mongoClient;
+
+  @Value("${spring.mongodb.database}")
+  String databaseName;
+
+  private ChangeEventBus bus;
+
+  private ChangeStreamWatcher watcher;
+
+  private final BlockingQueue<ChangeEvent> events = new LinkedBlockingQueue<>();
+
+  private ObjectId commentId;
+
+  @Before
+  public void setUp() {
+    bus = new ChangeEventBus();
+    bus.subscribe("comments", events::add);
+    watcher = watcher();
+    commentId = new ObjectId();
+  }
+
+  @After
+  public void tearDown() {
+    watcher.stop();
+    comments().deleteOne(Filters.eq("_id", commentId));
+    mongoClient
+        .getDatabase(databaseName)
+        .getCollection(ChangeStreamWatcher.TOKENS_COLLECTION)
+        .deleteOne(Filters.eq("_id", CONSUMER));
+  }
+
+  /** The test has its own resume token, so it does not move the token of a running instance. */
+  private ChangeStreamWatcher watcher() {
+    ChangeStreamWatcher watcher = new ChangeStreamWatcher(mongoClient, databaseName, bus);
+    watcher.setConsumer(CONSUMER);
+    return watcher;
+  }
+
+  private MongoCollection<Document> comments() {
+    return mongoClient.getDatabase(databaseName).getCollection("comments");
+  }
+
+  private ChangeEvent nextEvent() throws InterruptedException {
+    ChangeEvent event;
+    do {
+      event = events.poll(10, TimeUnit.SECONDS);
+      Assert.assertNotNull("Change event should be published", event);
+    } while (!new BsonObjectId(commentId).equals(event.getDocumentKey()));
+    return event;
+  }
+
+  @Test
+  public void testPublishesWrites() throws InterruptedException {
+    watcher.start();
+    // let the stream open before writing
+    Thread.sleep(2000);
+    comments().insertOne(new Document("_id", commentId).append("text", "change stream test"));
+
+    ChangeEvent event = nextEvent();
+    Assert.assertEquals("comments", event.getCollection());
+    Assert.assertEquals("insert", event.getOperationType());
+  }
+
+  @Test
+  public void testResumesAfterRestart() throws InterruptedException {
+    watcher.start();
+    Thread.sleep(2000);
+    comments().insertOne(new Document("_id", commentId).append("text", "change stream test"));
+    Assert.assertEquals("insert", nextEvent().getOperationType());
+    watcher.stop();
+
+    // written while the watcher is stopped
+    comments().deleteOne(Filters.eq("_id", commentId));
+
+    watcher = watcher();
+    watcher.start();
+    Assert.assertEquals(
+        "Changes written while stopped should be delivered after the saved resume token",
+        "delete",
+        nextEvent().getOperationType());
+  }
+}
@@ -0,0 +1,87 @@
+package mflix.api.security;
+
+import mflix.api.services.TokenAuthenticationService;
+import mflix.config.WebSecurityConfig;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the security rules of the authenticated movie reads against stub handlers mapped like
+ * {@link mflix.api.controllers.MovieController#export} and {@link
+ * mflix.api.controllers.MovieController#cacheStats}, including the trailing slash variant Spring MVC
+ * also maps to them.
+ */
+@RunWith(SpringRunner.class)
+@WebMvcTest(controllers = AuthenticatedReadsTest.MoviesController.class)
+@Import({
+  WebSecurityConfig.class,
+  JWTAuthEntryPoint.class,
+  TokenAuthenticationService.class,
+  AuthenticatedReadsTest.Users.class
+})
+public class AuthenticatedReadsTest {
+
+  /** Stands in for UserService, whose users are not needed to check JWT requests. */
+  @TestConfiguration
+  static class Users {
+    @Bean
+    public UserDetailsService userDetailsService() {
+      return new InMemoryUserDetailsManager();
+    }
+  }
+
+  @RestController
+  static class MoviesController {
+    @GetMapping(value = "/api/v1/movies/export")
+    public ResponseEntity export() {
+      return ResponseEntity.ok().build();
+    }
+
+    @GetMapping(value = "/api/v1/movies/cache-stats")
+    public ResponseEntity cacheStats() {
+      return ResponseEntity.ok().build();
+    }
+  }
+
+  @Autowired private MockMvc mvc;
+
+  @Autowired private TokenAuthenticationService authService;
+
+  @Test
+  public void testExportRequiresToken() throws Exception {
+    mvc.perform(get("/api/v1/movies/export")).andExpect(status().isUnauthorized());
+    mvc.perform(get("/api/v1/movies/export/")).andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  public void testExportWithToken() throws Exception {
+    String header = authService.mintJWTHeader("user@email.com");
+    mvc.perform(get("/api/v1/movies/export/").header("Authorization", header))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void testCacheStatsRequireToken() throws Exception {
+    mvc.perform(get("/api/v1/movies/cache-stats")).andExpect(status().isUnauthorized());
+    mvc.perform(get("/api/v1/movies/cache-stats/")).andExpect(status().isUnauthorized());
+
+    String header = authService.mintJWTHeader("user@email.com");
+    mvc.perform(get("/api/v1/movies/cache-stats").header("Authorization", header))
+        .andExpect(status().isOk());
+  }
+}
@@ -0,0 +1,67 @@
+package mflix.api.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class BoundedPasswordEncoderTest {
+
+  @Test
+  public void testEncodeAndMatch() {
+    BoundedPasswordEncoder encoder =
+        new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 10);
+    String hash = encoder.encode("somepassword");
+    Assert.assertTrue(encoder.matches("somepassword", hash));
+    Assert.assertFalse(encoder.matches("otherpassword", hash));
+    Assert.assertEquals(0L, encoder.stats().get("rejected"));
+    encoder.shutdown();
+  }
+
+  @Test
+  public void testRejectsWhenSaturated() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder blocking =
+        new PasswordEncoder() {
+          @Override
+          public String encode(CharSequence rawPassword) {
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+          }
+
+          @Override
+          public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+          }
+        };
+    BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, 1, 1);
+    ExecutorService callers = Executors.newFixedThreadPool(2);
+    // one hash runs, one waits in the queue
+    callers.submit(() -> encoder.encode("running"));
+    callers.submit(() -> encoder.encode("queued"));
+    while ((int) encoder.stats().get("queued") < 1) {
+      Thread.sleep(10);
+    }
+
+    try {
+      encoder.encode("rejected");
+      Assert.fail("Hashing should be rejected when the pool and its queue are full");
+    } catch (PasswordHashingRejectedException e) {
+      Assert.assertEquals(1L, encoder.stats().get("rejected"));
+    } finally {
+      release.countDown();
+      callers.shutdown();
+      callers.awaitTermination(5, TimeUnit.SECONDS);
+      encoder.shutdown();
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package mflix.api.security;
+
+import mflix.api.services.TokenAuthenticationService;
+import mflix.config.WebSecurityConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+public class JWTAuthenticationFilterTest {
+
+  private TokenAuthenticationService authService;
+
+  private JWTAuthenticationFilter filter;
+
+  private String header;
+
+  @Before
+  public void setUp() {
+    authService = new TokenAuthenticationService();
+    ReflectionTestUtils.setField(authService, "jwtSecret", "SUPER_SECRET_KEY_FOR_TESTS");
+    ReflectionTestUtils.setField(authService, "jwtExpirationInMs", 60000L);
+    ReflectionTestUtils.setField(authService, "cacheMaxEntries", 1000L);
+    ReflectionTestUtils.setField(authService, "cacheTtlMillis", 300000L);
+    authService.init();
+    filter = new JWTAuthenticationFilter();
+    filter.setAuthService(authService);
+    filter.setPublicRoutes(WebSecurityConfig.PUBLIC_READS);
+    header = authService.mintJWTHeader("user@email.com");
+  }
+
+  @After
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private Authentication filter(JWTAuthenticationFilter filter, String method, String path)
+      throws ServletException, IOException {
+    SecurityContextHolder.clearContext();
+    MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+    request.setServletPath(path);
+    request.addHeader("Authorization", header);
+    filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    return SecurityContextHolder.getContext().getAuthentication();
+  }
+
+  @Test
+  public void testPublicReadsSkipVerification() throws Exception {
+    Assert.assertNull(filter(filter, "GET", "/api/v1/movies/search"));
+    Assert.assertNull(filter(filter, "GET", "/api/v1/movies/id/573a1390f29313caabcd4135"));
+    Assert.assertEquals(
+        "Public reads should not verify tokens", 0L, authService.getCacheStats().get("misses"));
+  }
+
+  @Test
+  public void testAuthenticatedOperationsGetPrincipal() throws Exception {
+    Assert.assertEquals(
+        "user@email.com", filter(filter, "POST", "/api/v1/movies/comment").getName());
+    Assert.assertEquals(
+        "user@email.com", filter(filter, "DELETE", "/api/v1/movies/comment").getName());
+    Assert.assertEquals(
+        "user@email.com", filter(filter, "GET", "/api/v1/movies/export").getName());
+    Assert.assertEquals(
+        "user@email.com", filter(filter, "GET", "/api/v1/movies/export/").getName());
+    Assert.assertEquals(
+        "user@email.com", filter(filter, "GET", "/api/v1/movies/cache-stats").getName());
+    Assert.assertEquals("user@email.com", filter(filter, "GET", "/api/v1/user/").getName());
+  }
+}
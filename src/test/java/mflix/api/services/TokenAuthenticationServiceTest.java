@@ -0,0 +1,66 @@
+package mflix.api.services;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Map;
+
+public class TokenAuthenticationServiceTest {
+
+  private static final String SECRET = "SUPER_SECRET_KEY_FOR_TESTS";
+
+  private TokenAuthenticationService service;
+
+  @Before
+  public void setUp() {
+    service = new TokenAuthenticationService();
+    ReflectionTestUtils.setField(service, "jwtSecret", SECRET);
+    ReflectionTestUtils.setField(service, "jwtExpirationInMs", 60000L);
+    ReflectionTestUtils.setField(service, "cacheMaxEntries", 100000L);
+    ReflectionTestUtils.setField(service, "cacheTtlMillis", 300000L);
+    service.init();
+  }
+
+  @Test
+  public void testRepeatedTokenIsVerifiedOnce() {
+    String header = service.mintJWTHeader("user@email.com");
+    Assert.assertEquals("user@email.com", service.getAuthenticationUser(header));
+    Assert.assertEquals("user@email.com", service.getAuthenticationUser(header));
+
+    Map<String, Object> stats = service.getCacheStats();
+    Assert.assertEquals(1L, stats.get("verifications"));
+    Assert.assertEquals(1L, stats.get("hits"));
+  }
+
+  @Test
+  public void testInvalidTokensAreNotCached() {
+    String header = service.mintJWTHeader("user@email.com");
+    String tampered = header.substring(0, header.length() - 2) + "xx";
+    Assert.assertNull(service.getAuthenticationUser(tampered));
+    Assert.assertNull(service.getAuthenticationUser(tampered));
+
+    Map<String, Object> stats = service.getCacheStats();
+    Assert.assertEquals(2L, stats.get("verifications"));
+    Assert.assertEquals(2L, stats.get("rejections"));
+  }
+
+  @Test
+  public void testCachedTokenExpires() throws InterruptedException {
+    String jwt =
+        Jwts.builder()
+            .setSubject("user@email.com")
+            .setExpiration(new Date(System.currentTimeMillis() + 1500))
+            .signWith(SignatureAlgorithm.HS512, SECRET)
+            .compact();
+    Assert.assertEquals("user@email.com", service.getAuthenticationUser(jwt));
+    // jwt expiration has a second precision
+    Thread.sleep(2000);
+    Assert.assertNull(
+        "Cached tokens should not outlive their expiration", service.getAuthenticationUser(jwt));
+  }
+}